@@ -0,0 +1,93 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * {@code AliasTable} 为 {@link CompactGraph} 的每个单词保存一张别名表（Vose 方法），可以在 O(1) 时间内
+ * 按边权重比例抽取一条出边.
+ *
+ * <p>表与 CSR 的边数组一一对应：每条边位置上保存保留自身的概率和别名边的编号。抽样时在当前单词的行中均匀选择一个位置，
+ * 再以该概率决定取这条边还是它的别名。整张表只需一次遍历所有边即可建立，每个紧凑图只构建一次，可通过
+ * {@link #of(CompactGraph)} 获取.
+ */
+final class AliasTable {
+
+  private final CompactGraph graph;
+  private final double[] probability;
+  private final int[] alias;
+
+  private AliasTable(CompactGraph graph) {
+    this.graph = graph;
+    int m = graph.edgeCount();
+    probability = new double[m];
+    alias = new int[m];
+
+    int maxDegree = 0;
+    for (int id = 0; id < graph.size(); id++) {
+      maxDegree = Math.max(maxDegree, graph.edgeEnd(id) - graph.edgeStart(id));
+    }
+    int[] small = new int[maxDegree];
+    int[] large = new int[maxDegree];
+
+    for (int id = 0; id < graph.size(); id++) {
+      int start = graph.edgeStart(id);
+      int end = graph.edgeEnd(id);
+      long total = 0;
+      for (int e = start; e < end; e++) {
+        total += graph.weight(e);
+      }
+
+      // Scale the weights so that their mean is 1, then pair each short bucket with a tall one
+      int smallCount = 0;
+      int largeCount = 0;
+      for (int e = start; e < end; e++) {
+        probability[e] = (double) graph.weight(e) * (end - start) / total;
+        alias[e] = e;
+        if (probability[e] < 1.0) {
+          small[smallCount++] = e;
+        } else {
+          large[largeCount++] = e;
+        }
+      }
+      while (smallCount > 0 && largeCount > 0) {
+        int less = small[--smallCount];
+        int more = large[--largeCount];
+        alias[less] = more;
+        probability[more] += probability[less] - 1.0;
+        if (probability[more] < 1.0) {
+          small[smallCount++] = more;
+        } else {
+          large[largeCount++] = more;
+        }
+      }
+      // Whatever is left is 1 up to rounding error
+      while (largeCount > 0) {
+        probability[large[--largeCount]] = 1.0;
+      }
+      while (smallCount > 0) {
+        probability[small[--smallCount]] = 1.0;
+      }
+    }
+  }
+
+  /**
+   * 获取紧凑图对应的别名表，第一次使用时构建.
+   *
+   * @param graph 紧凑图
+   * @return 别名表
+   */
+  static AliasTable of(CompactGraph graph) {
+    return graph.cachedAnalysis(AliasTable.class, () -> new AliasTable(graph));
+  }
+
+  /**
+   * 按边权重比例抽取单词的一条出边.
+   *
+   * @param id     单词编号，必须至少有一条出边
+   * @param random 随机数生成器
+   * @return 边编号
+   */
+  int sample(int id, RandomGenerator random) {
+    int start = graph.edgeStart(id);
+    int edge = start + random.nextInt(graph.edgeEnd(id) - start);
+    return random.nextDouble() < probability[edge] ? edge : alias[edge];
+  }
+}
@@ -0,0 +1,219 @@
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@code AnalysisCache} 缓存针对整个图的分析结果（例如 PageRank 向量），并以图的版本号作为失效依据.
+ *
+ * <p>每次查询都带上图的当前版本号；版本号变化时，之前缓存的所有结果都会被丢弃。通过
+ * {@link #getUpdated(long, Object, Function, Function)} 计算的结果会额外留下一份种子（例如 rank 向量，
+ * 而不是引用旧图的整个结果），在图被修改后交给计算函数，用作增量计算的起点。种子最多保留
+ * {@value #MAX_SEEDS} 份，最久未更新的先被丢弃.
+ *
+ * <p>由调用方参数决定的结果（例如不同温度的文本生成器、不同收敛阈值的 PageRank）应使用
+ * {@link #parameterized(Object, Object...)} 生成的键。不可变的图永远不会失效，因此同一种分析的参数组合在每个版本中
+ * 最多缓存 {@value #MAX_VARIANTS} 个，最久未使用的先被丢弃，不会随调用方传入的参数无限增长.
+ *
+ * <p>缓存不持有任何锁进行计算：每个键对应一个 {@link FutureTask}，第一个查询的线程在自己的线程中计算，
+ * 同一键的其他查询等待这个结果，不同键的计算互不阻塞.
+ */
+final class AnalysisCache {
+
+  private static final int MAX_SEEDS = 4;
+  private static final int MAX_VARIANTS = 4;
+
+  private final AtomicReference<Generation> current = new AtomicReference<>(new Generation(0));
+  // The seed of the latest result of each getUpdated key, least recently stored first
+  private final Map<Object, Object> seeds = new LinkedHashMap<>();
+
+  /**
+   * 生成带参数的分析键. 同一种分析的不同参数组合在缓存中的数量有上限.
+   *
+   * @param kind       分析的种类
+   * @param parameters 分析的参数，需要正确实现 equals 和 hashCode
+   * @return 分析的键
+   */
+  static Object parameterized(Object kind, Object... parameters) {
+    return new Variant(kind, List.of(parameters));
+  }
+
+  /**
+   * 获取缓存的结果，不存在或已失效时计算并缓存.
+   *
+   * @param currentVersion 图的当前版本号
+   * @param key            分析的键，需要正确实现 equals 和 hashCode
+   * @param computation    计算结果的函数，不能返回 null
+   * @param <T>            结果类型
+   * @return 缓存的或新计算的结果
+   */
+  <T> T get(long currentVersion, Object key, Supplier<T> computation) {
+    return compute(currentVersion, key, computation);
+  }
+
+  /**
+   * 获取缓存的结果，不存在或已失效时计算并缓存. 计算函数会收到同一个键最近一次结果的种子，没有时收到 null；
+   * 计算完成后由 {@code seedOf} 从新结果中提取种子保存下来.
+   *
+   * @param currentVersion 图的当前版本号
+   * @param key            分析的键，需要正确实现 equals 和 hashCode
+   * @param computation    由之前的种子计算新结果的函数，不能返回 null
+   * @param seedOf         从结果中提取供下次计算使用的种子的函数
+   * @param <S>            种子类型
+   * @param <T>            结果类型
+   * @return 缓存的或新计算的结果
+   */
+  <S, T> T getUpdated(long currentVersion, Object key, Function<S, T> computation,
+      Function<T, S> seedOf) {
+    return compute(currentVersion, key, () -> {
+      T result = computation.apply(seed(key));
+      storeSeed(key, seedOf.apply(result));
+      return result;
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private synchronized <S> S seed(Object key) {
+    return (S) seeds.get(key);
+  }
+
+  private synchronized void storeSeed(Object key, Object seed) {
+    seeds.remove(key);
+    seeds.put(key, seed);
+    if (seeds.size() > MAX_SEEDS) {
+      Iterator<Object> oldest = seeds.keySet().iterator();
+      oldest.next();
+      oldest.remove();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T compute(long currentVersion, Object key, Supplier<T> computation) {
+    Generation generation = generation(currentVersion);
+    if (generation == null) {
+      // A reader that saw an older version than the cache holds; its result would be stale
+      return computation.get();
+    }
+
+    FutureTask<Object> task = generation.results.get(key);
+    if (key instanceof Variant) {
+      generation.use((Variant) key);
+    }
+    if (task == null) {
+      // Not computeIfAbsent: the computation may itself consult this cache
+      FutureTask<Object> created = new FutureTask<>(computation::get);
+      task = generation.results.putIfAbsent(key, created);
+      if (task == null) {
+        task = created;
+        created.run();
+      }
+    }
+    return (T) await(generation, key, task);
+  }
+
+  // Get the generation of the given version, starting it if the version is newer
+  private Generation generation(long currentVersion) {
+    while (true) {
+      Generation generation = current.get();
+      if (generation.version == currentVersion) {
+        return generation;
+      }
+      if (generation.version > currentVersion) {
+        return null;
+      }
+      Generation next = new Generation(currentVersion);
+      if (current.compareAndSet(generation, next)) {
+        return next;
+      }
+    }
+  }
+
+  private static Object await(Generation generation, Object key, FutureTask<Object> task) {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return task.get();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        } catch (ExecutionException e) {
+          // Let the next query retry instead of caching the failure
+          generation.results.remove(key, task);
+          Throwable cause = e.getCause();
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          }
+          if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          throw new IllegalStateException(cause);
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * 某一版本图的全部缓存结果.
+   */
+  private static final class Generation {
+
+    final long version;
+    final Map<Object, FutureTask<Object>> results = new ConcurrentHashMap<>();
+    // The parameterized keys of each kind, least recently used first
+    private final Map<Object, Set<Variant>> variants = new HashMap<>();
+
+    Generation(long version) {
+      this.version = version;
+    }
+
+    // Mark a parameterized key as used, dropping the result of the oldest one over the limit
+    synchronized void use(Variant key) {
+      Set<Variant> keys = variants.computeIfAbsent(key.kind, kind -> new LinkedHashSet<>());
+      keys.remove(key);
+      keys.add(key);
+      if (keys.size() > MAX_VARIANTS) {
+        Iterator<Variant> oldest = keys.iterator();
+        results.remove(oldest.next());
+        oldest.remove();
+      }
+    }
+  }
+
+  /**
+   * 带参数的分析键.
+   */
+  private static final class Variant {
+
+    final Object kind;
+    final List<Object> parameters;
+
+    Variant(Object kind, List<Object> parameters) {
+      this.kind = kind;
+      this.parameters = parameters;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Variant
+          && ((Variant) o).kind.equals(kind) && ((Variant) o).parameters.equals(parameters);
+    }
+
+    @Override
+    public int hashCode() {
+      return kind.hashCode() * 31 + parameters.hashCode();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.random.RandomGenerator;
+import java.util.regex.Matcher;
+import java.util.stream.IntStream;
+
+/**
+ * {@code BridgeTextGenerator} 在同一个冻结图上批量执行 {@link TextGraphAnalyzer#generateNewText} 的桥接词插入.
+ *
+ * <p>每个输入单词只做一次小写转换和编号查找。桥接词查询的结果按单词对缓存在并发映射中，多个线程处理不同文本时共享，
+ * 因此重复出现的单词对只需在图上求交一次。缓存的桥接词与 {@link TextGraphAnalyzer#queryBridgeWords} 一样按字母顺序排列，
+ * 因此同一个随机数生成器选出的桥接词与逐段调用 {@link TextGraphAnalyzer#generateNewText} 相同。
+ * 图不可变，生成器本身不持有随机数状态，可以被多个线程同时使用.
+ */
+final class BridgeTextGenerator {
+
+  private static final int[] NO_BRIDGES = new int[0];
+
+  private final CompactGraph graph;
+  private final ConcurrentHashMap<Long, int[]> bridges = new ConcurrentHashMap<>();
+
+  BridgeTextGenerator(CompactGraph graph) {
+    this.graph = graph;
+  }
+
+  /**
+   * 在文本的每对相邻单词之间随机插入一个桥接词，结果与 {@link TextGraphAnalyzer#generateNewText} 的格式相同.
+   *
+   * @param inputText 输入文本
+   * @param random    选择桥接词使用的随机数生成器，只由调用线程使用
+   * @return 插入桥接词后的文本
+   */
+  String generate(String inputText, RandomGenerator random) {
+    Matcher matcher = TextGraphAnalyzer.WORD_PATTERN.matcher(inputText);
+    List<String> words = new ArrayList<>();
+    while (matcher.find()) {
+      words.add(matcher.group());
+    }
+
+    if (words.size() <= 1) {
+      return inputText; // Not enough words to insert bridge words
+    }
+
+    StringBuilder result = new StringBuilder(inputText.length() * 2);
+    result.append(words.get(0));
+    int previous = graph.indexOf(words.get(0).toLowerCase());
+    for (int i = 1; i < words.size(); i++) {
+      String word = words.get(i);
+      int current = graph.indexOf(word.toLowerCase());
+
+      int[] candidates = bridgesBetween(previous, current);
+      if (candidates.length > 0) {
+        result.append(' ').append(graph.wordAt(candidates[random.nextInt(candidates.length)]));
+      }
+      result.append(' ').append(word);
+      previous = current;
+    }
+    return result.toString();
+  }
+
+  private int[] bridgesBetween(int word1, int word2) {
+    if (word1 < 0 || word2 < 0) {
+      return NO_BRIDGES;
+    }
+    long key = ((long) word1 << 32) | word2;
+    int[] cached = bridges.get(key);
+    if (cached == null) {
+      // Ids follow the graph's insertion order; pick from the alphabetical order instead
+      cached = IntStream.of(graph.bridgeWords(word1, word2)).boxed()
+          .sorted(Comparator.comparing(graph::wordAt))
+          .mapToInt(Integer::intValue)
+          .toArray();
+      bridges.putIfAbsent(key, cached);
+    }
+    return cached;
+  }
+}
@@ -0,0 +1,524 @@
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@code CompactGraph} 是单词有向图的紧凑不可变表示，由 {@link TextGraphAnalyzer.DirectedGraph#freeze()} 生成.
+ *
+ * <p>每个单词在字典中对应一个 {@code int} 编号，边以压缩稀疏行（CSR）格式存放在三个 {@code int[]} 中：
+ * 单词 {@code id} 的出边位于 {@code [offsets[id], offsets[id + 1])}，{@code targets} 与 {@code weights}
+ * 分别保存目标单词编号和边的权重，同一行内按目标编号升序排列。相比每条边一个哈希表项和一个装箱 {@code Integer}，
+ * 这种表示占用的内存小得多，遍历邻居时也是顺序访问数组.
+ *
+ * <p>除了 {@link WordGraph} 接口，该类还提供基于编号的访问方法，供需要高性能的算法直接使用.
+ */
+public final class CompactGraph implements WordGraph {
+
+  private final String[] words;
+  private final int[] slots;
+  private final int[] offsets;
+  private final int[] targets;
+  private final int[] weights;
+  private final AnalysisCache analysisCache = new AnalysisCache();
+
+  // Reverse (in-edge) CSR arrays, built on first use
+  private volatile int[] inOffsets;
+  private int[] inSources;
+  private int[] inWeights;
+
+  private CompactGraph(String[] words, int[] offsets, int[] targets, int[] weights) {
+    this.words = words;
+    this.offsets = offsets;
+    this.targets = targets;
+    this.weights = weights;
+
+    // Open-addressing dictionary from word to id; a slot holds id + 1, 0 means empty
+    int capacity = Integer.highestOneBit(Math.max(2, words.length * 2 - 1)) << 1;
+    this.slots = new int[capacity];
+    for (int id = 0; id < words.length; id++) {
+      int slot = hash(words[id]) & (capacity - 1);
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & (capacity - 1);
+      }
+      slots[slot] = id + 1;
+    }
+  }
+
+  /**
+   * 冻结一个图，生成其紧凑表示. 单词编号按 {@code getAllWords()} 的迭代顺序分配.
+   *
+   * @param graph 要冻结的图
+   * @return 紧凑不可变的图
+   */
+  public static CompactGraph of(WordGraph graph) {
+    String[] words = graph.getAllWords().toArray(new String[0]);
+    int n = words.length;
+
+    Map<String, Integer> ids = new HashMap<>(n * 2);
+    for (int id = 0; id < n; id++) {
+      ids.put(words[id], id);
+    }
+
+    int[] offsets = new int[n + 1];
+    for (int id = 0; id < n; id++) {
+      offsets[id + 1] = offsets[id] + graph.getNeighbors(words[id]).size();
+    }
+
+    int m = offsets[n];
+    int[] targets = new int[m];
+    int[] weights = new int[m];
+    long[] row = new long[0];
+    for (int id = 0; id < n; id++) {
+      Map<String, Integer> neighbors = graph.getNeighbors(words[id]);
+      if (row.length < neighbors.size()) {
+        row = new long[neighbors.size()];
+      }
+
+      // Pack (target, weight) so that sorting the longs sorts the row by target id
+      int degree = 0;
+      for (Map.Entry<String, Integer> edge : neighbors.entrySet()) {
+        row[degree++] = ((long) ids.get(edge.getKey()) << 32) | edge.getValue();
+      }
+      Arrays.sort(row, 0, degree);
+
+      int base = offsets[id];
+      for (int i = 0; i < degree; i++) {
+        targets[base + i] = (int) (row[i] >>> 32);
+        weights[base + i] = (int) row[i];
+      }
+    }
+
+    return new CompactGraph(words, offsets, targets, weights);
+  }
+
+  /**
+   * 由已经构造好的 CSR 数组创建紧凑图，数组直接被使用而不会复制. 每一行必须按目标编号升序排列.
+   *
+   * @param words   单词表，下标即单词编号
+   * @param offsets 长度为单词数加一的行偏移数组
+   * @param targets 边的目标编号
+   * @param weights 边的权重
+   * @return 紧凑图
+   */
+  static CompactGraph fromArrays(String[] words, int[] offsets, int[] targets, int[] weights) {
+    return new CompactGraph(words, offsets, targets, weights);
+  }
+
+  private static int hash(String word) {
+    int h = word.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * 查找一个已经是小写形式的单词的编号.
+   *
+   * @param word 小写单词
+   * @return 单词编号，不存在时返回 -1
+   */
+  public int indexOf(String word) {
+    int mask = slots.length - 1;
+    int slot = hash(word) & mask;
+    while (slots[slot] != 0) {
+      int id = slots[slot] - 1;
+      if (words[id].equals(word)) {
+        return id;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * 获取编号对应的单词.
+   *
+   * @param id 单词编号
+   * @return 单词
+   */
+  public String wordAt(int id) {
+    return words[id];
+  }
+
+  /**
+   * 获取路径从 {@code previous} 走到 {@code id} 时新输出的文本. 节点名是以空格连接的单词序列时（例如
+   * {@link KGramGraph} 的上下文），沿一条边前进的相邻节点彼此重叠，只需输出最后一个单词；路径的第一个节点以及
+   * 不沿边的跳转（例如重启）输出完整的节点名。这样把路径的输出用空格拼接起来，就是原文中真实出现的单词序列.
+   * 普通单词图中总是返回单词本身.
+   *
+   * @param previous 路径中上一个节点的编号，路径开头时为 -1
+   * @param id       当前节点的编号
+   * @return 应输出的文本
+   */
+  public String emittedAt(int previous, int id) {
+    String word = words[id];
+    int space = word.lastIndexOf(' ');
+    if (space < 0 || previous < 0 || findEdge(previous, id) < 0) {
+      return word;
+    }
+    return word.substring(space + 1);
+  }
+
+  /**
+   * 获取单词出边在边数组中的起始下标.
+   *
+   * @param id 单词编号
+   * @return 第一条出边的下标
+   */
+  public int edgeStart(int id) {
+    return offsets[id];
+  }
+
+  /**
+   * 获取单词出边在边数组中的结束下标（不包含）.
+   *
+   * @param id 单词编号
+   * @return 最后一条出边之后的下标
+   */
+  public int edgeEnd(int id) {
+    return offsets[id + 1];
+  }
+
+  /**
+   * 获取边的目标单词编号.
+   *
+   * @param edge 边下标
+   * @return 目标单词编号
+   */
+  public int target(int edge) {
+    return targets[edge];
+  }
+
+  /**
+   * 获取边的权重.
+   *
+   * @param edge 边下标
+   * @return 边的权重
+   */
+  public int weight(int edge) {
+    return weights[edge];
+  }
+
+  /**
+   * 查找从 {@code from} 到 {@code to} 的边.
+   *
+   * @param from 起点编号
+   * @param to   终点编号
+   * @return 边下标，不存在时返回 -1
+   */
+  public int findEdge(int from, int to) {
+    int edge = Arrays.binarySearch(targets, offsets[from], offsets[from + 1], to);
+    return edge >= 0 ? edge : -1;
+  }
+
+  /**
+   * 获取边的总数.
+   *
+   * @return 边的总数
+   */
+  public int edgeCount() {
+    return targets.length;
+  }
+
+  /**
+   * 获取单词入边在入边数组中的起始下标. 入边索引在第一次使用时构建.
+   *
+   * @param id 单词编号
+   * @return 第一条入边的下标
+   */
+  public int inEdgeStart(int id) {
+    return inOffsets()[id];
+  }
+
+  /**
+   * 获取单词入边在入边数组中的结束下标（不包含）.
+   *
+   * @param id 单词编号
+   * @return 最后一条入边之后的下标
+   */
+  public int inEdgeEnd(int id) {
+    return inOffsets()[id + 1];
+  }
+
+  /**
+   * 获取入边的起点单词编号.
+   *
+   * @param inEdge 入边下标
+   * @return 起点单词编号
+   */
+  public int source(int inEdge) {
+    inOffsets();
+    return inSources[inEdge];
+  }
+
+  /**
+   * 获取入边的权重.
+   *
+   * @param inEdge 入边下标
+   * @return 边的权重
+   */
+  public int inWeight(int inEdge) {
+    inOffsets();
+    return inWeights[inEdge];
+  }
+
+  /**
+   * 查找从 {@code word1} 到 {@code word2} 的所有桥接词，即同时是 {@code word1} 的后继和 {@code word2} 的前驱的单词.
+   *
+   * <p>出边行和入边行都按单词编号有序，因此桥接词就是两行的交集。以较短的一行为准，
+   * 在较长的一行中做倍增（galloping）查找，代价为 O(短行长度 × log(长行长度))，高频单词也只需很少的比较.
+   *
+   * @param word1 第一个单词的编号
+   * @param word2 第二个单词的编号
+   * @return 桥接词编号，按编号升序排列
+   */
+  public int[] bridgeWords(int word1, int word2) {
+    int[] in = inOffsets();
+    int outStart = offsets[word1];
+    int outEnd = offsets[word1 + 1];
+    int inStart = in[word2];
+    int inEnd = in[word2 + 1];
+
+    boolean outIsShorter = outEnd - outStart <= inEnd - inStart;
+    int[] small = outIsShorter ? targets : inSources;
+    int smallPos = outIsShorter ? outStart : inStart;
+    int smallEnd = outIsShorter ? outEnd : inEnd;
+    int[] large = outIsShorter ? inSources : targets;
+    int largePos = outIsShorter ? inStart : outStart;
+    int largeEnd = outIsShorter ? inEnd : outEnd;
+
+    int[] result = new int[smallEnd - smallPos];
+    int count = 0;
+    for (; smallPos < smallEnd && largePos < largeEnd; smallPos++) {
+      int key = small[smallPos];
+
+      // Gallop forward to bracket the key, then binary search inside the bracket
+      int step = 1;
+      int low = largePos;
+      while (largePos + step < largeEnd && large[largePos + step] < key) {
+        low = largePos + step;
+        step <<= 1;
+      }
+      int found = Arrays.binarySearch(large, low, Math.min(largePos + step + 1, largeEnd), key);
+      if (found >= 0) {
+        result[count++] = key;
+        largePos = found + 1;
+      } else {
+        largePos = -found - 1;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  private int[] inOffsets() {
+    int[] offsets = inOffsets;
+    if (offsets == null) {
+      synchronized (this) {
+        offsets = inOffsets;
+        if (offsets == null) {
+          offsets = buildReverseIndex();
+          inOffsets = offsets;
+        }
+      }
+    }
+    return offsets;
+  }
+
+  // Transpose the CSR arrays; rows come out sorted by source id
+  private int[] buildReverseIndex() {
+    int n = words.length;
+    int[] offsets = new int[n + 1];
+    for (int target : targets) {
+      offsets[target + 1]++;
+    }
+    for (int id = 0; id < n; id++) {
+      offsets[id + 1] += offsets[id];
+    }
+
+    int[] next = Arrays.copyOf(offsets, n);
+    int[] sources = new int[targets.length];
+    int[] reverseWeights = new int[targets.length];
+    for (int from = 0; from < n; from++) {
+      for (int e = this.offsets[from]; e < this.offsets[from + 1]; e++) {
+        int slot = next[targets[e]]++;
+        sources[slot] = from;
+        reverseWeights[slot] = weights[e];
+      }
+    }
+
+    inSources = sources;
+    inWeights = reverseWeights;
+    return offsets;
+  }
+
+  @Override
+  public boolean containsWord(String word) {
+    return containsWordNormalized(word.toLowerCase());
+  }
+
+  @Override
+  public boolean containsWordNormalized(String word) {
+    return indexOf(word) >= 0;
+  }
+
+  @Override
+  public Map<String, Integer> getNeighbors(String word) {
+    return getNeighborsNormalized(word.toLowerCase());
+  }
+
+  @Override
+  public Map<String, Integer> getNeighborsNormalized(String word) {
+    int id = indexOf(word);
+    if (id < 0) {
+      return Collections.emptyMap();
+    }
+    return new RowMap(id, false);
+  }
+
+  @Override
+  public Map<String, Integer> getPredecessorsNormalized(String word) {
+    int id = indexOf(word);
+    if (id < 0) {
+      return Collections.emptyMap();
+    }
+    return new RowMap(id, true);
+  }
+
+  @Override
+  public Set<String> getAllWords() {
+    return new AbstractSet<>() {
+      @Override
+      public boolean contains(Object o) {
+        return o instanceof String && indexOf((String) o) >= 0;
+      }
+
+      @Override
+      public Iterator<String> iterator() {
+        return Collections.unmodifiableList(Arrays.asList(words)).iterator();
+      }
+
+      @Override
+      public int size() {
+        return words.length;
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return words.length;
+  }
+
+  /**
+   * 紧凑图本身已经是冻结的形式.
+   *
+   * @return 本图
+   */
+  @Override
+  public CompactGraph freeze() {
+    return this;
+  }
+
+  // The graph is immutable, so cached results never go stale
+  @Override
+  public <T> T cachedAnalysis(Object key, Supplier<T> computation) {
+    return analysisCache.get(0, key, computation);
+  }
+
+  @Override
+  public <S, T> T updatedAnalysis(Object key, Function<S, T> computation,
+      Function<T, S> seedOf) {
+    return analysisCache.getUpdated(0, key, computation, seedOf);
+  }
+
+  /**
+   * 一行 CSR 的只读 {@link Map} 视图，可以是出边行，也可以是反向 CSR 中的入边行.
+   */
+  private final class RowMap extends AbstractMap<String, Integer> {
+
+    private final int id;
+    private final boolean incoming;
+
+    RowMap(int id, boolean incoming) {
+      this.id = id;
+      this.incoming = incoming;
+    }
+
+    @Override
+    public Integer get(Object key) {
+      int edge = edgeTo(key);
+      return edge >= 0 ? weights[edge] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return edgeTo(key) >= 0;
+    }
+
+    // The out-edge between this row's word and the key, in either direction
+    private int edgeTo(Object key) {
+      if (!(key instanceof String)) {
+        return -1;
+      }
+      int other = indexOf((String) key);
+      if (other < 0) {
+        return -1;
+      }
+      return incoming ? findEdge(other, id) : findEdge(id, other);
+    }
+
+    private int start() {
+      return incoming ? inEdgeStart(id) : offsets[id];
+    }
+
+    private int end() {
+      return incoming ? inEdgeEnd(id) : offsets[id + 1];
+    }
+
+    @Override
+    public int size() {
+      return end() - start();
+    }
+
+    @Override
+    public Set<Entry<String, Integer>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public Iterator<Entry<String, Integer>> iterator() {
+          return new Iterator<>() {
+            private final int end = end();
+            private int edge = start();
+
+            @Override
+            public boolean hasNext() {
+              return edge < end;
+            }
+
+            @Override
+            public Entry<String, Integer> next() {
+              if (!hasNext()) {
+                throw new NoSuchElementException();
+              }
+              int e = edge++;
+              if (incoming) {
+                return new SimpleImmutableEntry<>(words[source(e)], inWeight(e));
+              }
+              return new SimpleImmutableEntry<>(words[targets[e]], weights[e]);
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return RowMap.this.size();
+        }
+      };
+    }
+  }
+}
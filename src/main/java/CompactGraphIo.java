@@ -0,0 +1,115 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@code CompactGraphIo} 负责把 {@link CompactGraph} 编码为字节，以及从字节中解码.
+ *
+ * <p>编码依次为：单词数、边数、每个单词（UTF-8 字节长度加内容）、行偏移数组、目标编号数组和权重数组，
+ * 所有整数均为大端序 {@code int}.
+ */
+final class CompactGraphIo {
+
+  private CompactGraphIo() {
+  }
+
+  /**
+   * 计算图编码后的字节数.
+   *
+   * @param graph 紧凑图
+   * @return 编码后的字节数
+   */
+  static long encodedSize(CompactGraph graph) {
+    long size = 2L * Integer.BYTES;
+    for (int id = 0; id < graph.size(); id++) {
+      size += Integer.BYTES + graph.wordAt(id).getBytes(StandardCharsets.UTF_8).length;
+    }
+    size += (long) (graph.size() + 1) * Integer.BYTES;
+    size += 2L * graph.edgeCount() * Integer.BYTES;
+    return size;
+  }
+
+  /**
+   * 把图编码写入缓冲区的当前位置.
+   *
+   * @param graph  紧凑图
+   * @param buffer 剩余空间不少于 {@link #encodedSize(CompactGraph)} 的缓冲区
+   */
+  static void write(CompactGraph graph, ByteBuffer buffer) {
+    int n = graph.size();
+    buffer.putInt(n);
+    buffer.putInt(graph.edgeCount());
+    for (int id = 0; id < n; id++) {
+      byte[] bytes = graph.wordAt(id).getBytes(StandardCharsets.UTF_8);
+      buffer.putInt(bytes.length);
+      buffer.put(bytes);
+    }
+    for (int id = 0; id <= n; id++) {
+      buffer.putInt(id < n ? graph.edgeStart(id) : graph.edgeCount());
+    }
+    for (int e = 0; e < graph.edgeCount(); e++) {
+      buffer.putInt(graph.target(e));
+    }
+    for (int e = 0; e < graph.edgeCount(); e++) {
+      buffer.putInt(graph.weight(e));
+    }
+  }
+
+  /**
+   * 从缓冲区的当前位置解码一个图.
+   *
+   * @param buffer 包含编码的缓冲区
+   * @return 解码得到的紧凑图
+   * @throws IllegalArgumentException 如果编码不合法，例如长度超出缓冲区、行偏移递减、目标编号越界或行内未按目标升序排列
+   */
+  static CompactGraph read(ByteBuffer buffer) {
+    int n = buffer.getInt();
+    int m = buffer.getInt();
+    // Every word takes at least its length prefix, so the counts must fit in what is left
+    if (n < 0 || m < 0
+        || (2L * n + 1 + 2L * m) * Integer.BYTES > buffer.remaining()) {
+      throw new IllegalArgumentException("Corrupt graph encoding: " + n + " words, " + m + " edges");
+    }
+
+    String[] words = new String[n];
+    byte[] bytes = new byte[64];
+    for (int id = 0; id < n; id++) {
+      int length = buffer.getInt();
+      if (length < 0 || length > buffer.remaining()) {
+        throw new IllegalArgumentException("Corrupt graph encoding: bad word length " + length);
+      }
+      if (length > bytes.length) {
+        bytes = new byte[length];
+      }
+      buffer.get(bytes, 0, length);
+      words[id] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    int[] offsets = new int[n + 1];
+    buffer.asIntBuffer().get(offsets);
+    buffer.position(buffer.position() + offsets.length * Integer.BYTES);
+    int[] targets = new int[m];
+    buffer.asIntBuffer().get(targets);
+    buffer.position(buffer.position() + targets.length * Integer.BYTES);
+    int[] weights = new int[m];
+    buffer.asIntBuffer().get(weights);
+    buffer.position(buffer.position() + weights.length * Integer.BYTES);
+
+    if (offsets[0] != 0 || offsets[n] != m) {
+      throw new IllegalArgumentException("Corrupt graph encoding: bad row offsets");
+    }
+    for (int id = 0; id < n; id++) {
+      if (offsets[id + 1] < offsets[id]) {
+        throw new IllegalArgumentException("Corrupt graph encoding: decreasing row offsets");
+      }
+    }
+    for (int id = 0; id < n; id++) {
+      for (int e = offsets[id]; e < offsets[id + 1]; e++) {
+        if (targets[e] < 0 || targets[e] >= n || (e > offsets[id] && targets[e] <= targets[e - 1])
+            || weights[e] <= 0) {
+          throw new IllegalArgumentException("Corrupt graph encoding: bad edge " + e);
+        }
+      }
+    }
+    return CompactGraph.fromArrays(words, offsets, targets, weights);
+  }
+}
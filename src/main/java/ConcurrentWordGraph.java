@@ -0,0 +1,286 @@
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@code ConcurrentWordGraph} 是线程安全的单词有向图，允许多个线程同时添加边和查询.
+ *
+ * <p>单词和出边都保存在 {@link ConcurrentHashMap} 中，每条边的计数是一个 {@link LongAdder}：
+ * 已存在的边被重复计数时只更新线程本地的计数单元，不需要加锁，高频二元组在多核上也不会成为争用热点。
+ * 修改次数用 {@link AtomicLong} 统计，作为缓存分析结果的版本号：每次写入在更新映射之后才递增版本号，
+ * 读到版本号 v 的线程一定能看到前 v 次写入，因此按 v 缓存的结果不会缺少这些写入.
+ *
+ * <p>{@link #getNeighbors(String)} 返回该单词出边的只读视图，读取时才汇总计数，不复制整行。{@link #freeze()}
+ * 逐行读取当前的边，直接构建一个自洽的紧凑图（每条边的终点都是图中的单词），并发写入的边可能出现也可能不出现在其中；
+ * 所有分析算法都运行在这个冻结的副本上，因此可以与写入线程同时进行。注意任何一次写入都会改变版本号，
+ * 写入期间的每次查询都要重新冻结一次，代价为 O(V+E)；同一版本的并发查询共享同一次冻结.
+ */
+public final class ConcurrentWordGraph implements WordGraph {
+
+  private final ConcurrentHashMap<String, ConcurrentHashMap<String, LongAdder>> adjacencyList =
+      new ConcurrentHashMap<>();
+  private final Set<String> allWordsView = Collections.unmodifiableSet(adjacencyList.keySet());
+  private final AtomicLong modifications = new AtomicLong();
+  private final AnalysisCache analysisCache = new AnalysisCache();
+
+  /**
+   * 添加一个单词到图中. 如果单词已经存在，则不做任何操作.
+   *
+   * @param word 要添加的单词
+   */
+  public void addWord(String word) {
+    addWordNormalized(word.toLowerCase());
+  }
+
+  /**
+   * 添加一个已经是小写形式的单词，不再做大小写转换. 如果单词已经存在，则不做任何操作.
+   *
+   * @param word 要添加的小写单词
+   */
+  public void addWordNormalized(String word) {
+    edgesOf(word);
+  }
+
+  // Get the out-edge map of a lowercase word, adding the word if it is new
+  private ConcurrentHashMap<String, LongAdder> edgesOf(String word) {
+    ConcurrentHashMap<String, LongAdder> edges = adjacencyList.get(word);
+    if (edges == null) {
+      ConcurrentHashMap<String, LongAdder> created = new ConcurrentHashMap<>();
+      edges = adjacencyList.putIfAbsent(word, created);
+      if (edges == null) {
+        edges = created;
+        modifications.incrementAndGet();
+      }
+    }
+    return edges;
+  }
+
+  /**
+   * 添加一条边，权重加 1. 单词不存在时会被添加.
+   *
+   * @param from 起点单词
+   * @param to   终点单词
+   */
+  public void addEdge(String from, String to) {
+    addEdge(from, to, 1);
+  }
+
+  /**
+   * 添加一条边，权重增加 {@code count}. 单词不存在时会被添加.
+   *
+   * @param from  起点单词
+   * @param to    终点单词
+   * @param count 要增加的次数
+   */
+  public void addEdge(String from, String to, int count) {
+    addEdgeNormalized(from.toLowerCase(), to.toLowerCase(), count);
+  }
+
+  /**
+   * 添加一条两个单词都已经是小写形式的边，不再做大小写转换.
+   *
+   * @param from  小写起点单词
+   * @param to    小写终点单词
+   * @param count 要增加的次数
+   */
+  public void addEdgeNormalized(String from, String to, int count) {
+    // Add the target first, so every edge a reader can see points at an existing word
+    edgesOf(to);
+    ConcurrentHashMap<String, LongAdder> edges = edgesOf(from);
+    LongAdder weight = edges.get(to);
+    if (weight == null) {
+      weight = edges.computeIfAbsent(to, k -> new LongAdder());
+    }
+    weight.add(count);
+    modifications.incrementAndGet();
+  }
+
+  @Override
+  public boolean containsWord(String word) {
+    return containsWordNormalized(word.toLowerCase());
+  }
+
+  @Override
+  public boolean containsWordNormalized(String word) {
+    return adjacencyList.containsKey(word);
+  }
+
+  @Override
+  public Map<String, Integer> getNeighbors(String word) {
+    return getNeighborsNormalized(word.toLowerCase());
+  }
+
+  /**
+   * 获取单词出边的只读视图. 视图反映之后的并发写入，迭代是弱一致的，权重在读取时才从计数器汇总.
+   *
+   * @param word 小写单词
+   * @return 邻居单词及边权重的映射
+   */
+  @Override
+  public Map<String, Integer> getNeighborsNormalized(String word) {
+    ConcurrentHashMap<String, LongAdder> edges = adjacencyList.get(word);
+    return edges != null ? new RowView(edges) : Collections.emptyMap();
+  }
+
+  private static int saturatedWeight(LongAdder weight) {
+    return (int) Math.min(weight.sum(), Integer.MAX_VALUE);
+  }
+
+  @Override
+  public Set<String> getAllWords() {
+    return allWordsView;
+  }
+
+  @Override
+  public int size() {
+    return adjacencyList.size();
+  }
+
+  /**
+   * 获取图的版本号，即已完成的添加单词和边的总次数. 版本号是线性一致的计数，单调递增.
+   *
+   * @return 当前版本号
+   */
+  public long version() {
+    return modifications.get();
+  }
+
+  /**
+   * 冻结当前的图. 每一行的边被单独读取，并补上读取过程中新出现的终点单词，因此结果总是自洽的.
+   * 图未被修改时返回同一个实例；图被修改后的第一次调用重新遍历全部单词和边.
+   *
+   * @return 紧凑图
+   */
+  @Override
+  public CompactGraph freeze() {
+    return cachedAnalysis(CompactGraph.class, this::compact);
+  }
+
+  // Build the CSR arrays straight from the concurrent maps, one row at a time
+  private CompactGraph compact() {
+    List<String> words = new ArrayList<>(adjacencyList.keySet());
+    Map<String, Integer> ids = new HashMap<>(words.size() * 2);
+    for (int id = 0; id < words.size(); id++) {
+      ids.put(words.get(id), id);
+    }
+
+    int rows = words.size();
+    int[] offsets = new int[rows + 1];
+    int[] targets = new int[Math.max(16, rows)];
+    int[] weights = new int[targets.length];
+    long[] row = new long[16];
+    int m = 0;
+    for (int id = 0; id < rows; id++) {
+      // Pack (target, weight) so that sorting the longs sorts the row by target id
+      int degree = 0;
+      for (Map.Entry<String, LongAdder> edge : adjacencyList.get(words.get(id)).entrySet()) {
+        Integer to = ids.get(edge.getKey());
+        if (to == null) {
+          // The target was added after the word list was taken
+          to = words.size();
+          ids.put(edge.getKey(), to);
+          words.add(edge.getKey());
+        }
+        if (degree == row.length) {
+          row = Arrays.copyOf(row, degree * 2);
+        }
+        row[degree++] = ((long) to << 32) | saturatedWeight(edge.getValue());
+      }
+      Arrays.sort(row, 0, degree);
+
+      if (m + degree > targets.length) {
+        targets = Arrays.copyOf(targets, Math.max(targets.length * 2, m + degree));
+        weights = Arrays.copyOf(weights, targets.length);
+      }
+      for (int i = 0; i < degree; i++, m++) {
+        targets[m] = (int) (row[i] >>> 32);
+        weights[m] = (int) row[i];
+      }
+      offsets[id + 1] = m;
+    }
+
+    // Words that only showed up as late targets have no out-edges in this copy
+    offsets = Arrays.copyOf(offsets, words.size() + 1);
+    Arrays.fill(offsets, rows + 1, offsets.length, m);
+    return CompactGraph.fromArrays(words.toArray(new String[0]), offsets,
+        Arrays.copyOf(targets, m), Arrays.copyOf(weights, m));
+  }
+
+  @Override
+  public <T> T cachedAnalysis(Object key, Supplier<T> computation) {
+    return analysisCache.get(version(), key, computation);
+  }
+
+  @Override
+  public <S, T> T updatedAnalysis(Object key, Function<S, T> computation,
+      Function<T, S> seedOf) {
+    return analysisCache.getUpdated(version(), key, computation, seedOf);
+  }
+
+  /**
+   * 一个单词出边的只读视图，权重在读取时才从 {@link LongAdder} 汇总.
+   */
+  private static final class RowView extends AbstractMap<String, Integer> {
+
+    private final ConcurrentHashMap<String, LongAdder> edges;
+
+    RowView(ConcurrentHashMap<String, LongAdder> edges) {
+      this.edges = edges;
+    }
+
+    @Override
+    public Integer get(Object key) {
+      LongAdder weight = edges.get(key);
+      return weight != null ? saturatedWeight(weight) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return edges.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+      return edges.size();
+    }
+
+    @Override
+    public Set<Entry<String, Integer>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public Iterator<Entry<String, Integer>> iterator() {
+          Iterator<Entry<String, LongAdder>> it = edges.entrySet().iterator();
+          return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+              return it.hasNext();
+            }
+
+            @Override
+            public Entry<String, Integer> next() {
+              Entry<String, LongAdder> edge = it.next();
+              return new SimpleImmutableEntry<>(edge.getKey(), saturatedWeight(edge.getValue()));
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return edges.size();
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,368 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32C;
+
+/**
+ * {@code DistanceOracle} 是预先计算好的全源最短路径表，保存在磁盘上并通过内存映射读取.
+ *
+ * <p>构建时在公共 fork-join 线程池上并行地从每个单词运行一次 Dijkstra，把每棵最短路径树中各单词的前驱写入文件的一行。
+ * 查询时沿前驱链回溯即可得到路径，代价与路径长度成正比，不需要再次搜索。由于前驱来自与
+ * {@link TextGraphAnalyzer#calcShortestPath(WordGraph, String, String)} 相同的搜索，返回的路径字符串与其完全一致.
+ *
+ * <p>文件格式：魔数、格式版本、前驱的字节宽度、图数据的字节数、图数据的 CRC32C 校验和，接着是
+ * {@link CompactGraphIo} 编码的图（用于计算路径长度），然后是每行前驱的 CRC32C 校验和，最后是 n×n 的前驱矩阵。
+ * 单词数小于 65535 时每个前驱占 2 字节，否则占 4 字节。图数据在加载时校验，矩阵的每一行在第一次被查询时校验.
+ *
+ * <p>前驱矩阵的大小与单词数的平方成正比。超过 {@value #MAX_MATRIX_BYTES} 字节时不写入矩阵（宽度记为 0），
+ * 查询改用 ALT 搜索（见 {@link PathSearchMode#ALT}），路径长度相同，但等长路径中选出的可能不同.
+ */
+public final class DistanceOracle {
+
+  private static final int MAGIC = 0x5447444F;
+  private static final int FORMAT_VERSION = 2;
+  private static final int HEADER_SIZE = 4 * Integer.BYTES + Long.BYTES;
+  private static final int NO_PREDECESSOR_16 = 0xFFFF;
+  static final long MAX_MATRIX_BYTES = 1L << 32;
+
+  private final CompactGraph graph;
+  private final int width;
+  private final int rowsPerSegment;
+  private final MappedByteBuffer[] segments;
+  private final int[] rowChecksums;
+  // 1 once a row's checksum has been verified
+  private final AtomicIntegerArray verifiedRows;
+  private final Path file;
+
+  private DistanceOracle(CompactGraph graph, int width, int rowsPerSegment,
+      MappedByteBuffer[] segments, int[] rowChecksums, Path file) {
+    this.graph = graph;
+    this.width = width;
+    this.rowsPerSegment = rowsPerSegment;
+    this.segments = segments;
+    this.rowChecksums = rowChecksums;
+    this.verifiedRows = new AtomicIntegerArray(rowChecksums.length);
+    this.file = file;
+  }
+
+  /**
+   * 为图预先计算全源最短路径并写入文件，然后加载它.
+   *
+   * @param graph 紧凑图
+   * @param file  输出文件，已存在时会被覆盖
+   * @return 加载好的最短路径表
+   * @throws IOException 如果写入或读取文件失败
+   */
+  static DistanceOracle build(CompactGraph graph, Path file) throws IOException {
+    return build(graph, file, MAX_MATRIX_BYTES);
+  }
+
+  /**
+   * 为图预先计算全源最短路径并写入文件，前驱矩阵超过 {@code maxMatrixBytes} 字节时只保存图.
+   *
+   * @param graph          紧凑图
+   * @param file           输出文件，已存在时会被覆盖
+   * @param maxMatrixBytes 前驱矩阵的最大字节数
+   * @return 加载好的最短路径表
+   * @throws IOException 如果写入或读取文件失败
+   */
+  static DistanceOracle build(CompactGraph graph, Path file, long maxMatrixBytes)
+      throws IOException {
+    int n = graph.size();
+    int width = matrixWidth(n);
+    if ((long) n * n * width > maxMatrixBytes) {
+      width = 0;
+    }
+    long graphBytes = CompactGraphIo.encodedSize(graph);
+    if (HEADER_SIZE + graphBytes > Integer.MAX_VALUE) {
+      throw new IOException("Graph is too large for a distance oracle");
+    }
+
+    ByteBuffer header = ByteBuffer.allocate((int) (HEADER_SIZE + graphBytes));
+    header.position(HEADER_SIZE);
+    CompactGraphIo.write(graph, header);
+    header.flip();
+    CRC32C graphChecksum = new CRC32C();
+    graphChecksum.update(header.duplicate().position(HEADER_SIZE));
+    header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(width).putLong(graphBytes)
+        .putInt((int) graphChecksum.getValue());
+    header.rewind();
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      writeFully(channel, header, 0);
+      if (width > 0) {
+        writeMatrix(graph, channel, HEADER_SIZE + graphBytes, width);
+      }
+    }
+    return load(file);
+  }
+
+  // Write the row checksums and then the predecessor rows, one Dijkstra per source in parallel
+  private static void writeMatrix(CompactGraph graph, FileChannel channel, long checksumsStart,
+      int width) throws IOException {
+    int n = graph.size();
+    long rowsStart = checksumsStart + (long) n * Integer.BYTES;
+    long rowBytes = (long) n * width;
+    int[] rowChecksums = new int[n];
+
+    ShortestPathEngine engine = ShortestPathEngine.of(graph);
+    ThreadLocal<int[]> previous = ThreadLocal.withInitial(() -> new int[n]);
+    ThreadLocal<ByteBuffer> rows =
+        ThreadLocal.withInitial(() -> ByteBuffer.allocate((int) rowBytes));
+    try {
+      IntStream.range(0, n).parallel().forEach(source -> {
+        int[] row = previous.get();
+        engine.predecessorsFrom(source, row);
+
+        ByteBuffer buffer = rows.get();
+        buffer.clear();
+        for (int predecessor : row) {
+          if (width == Short.BYTES) {
+            buffer.putChar((char) (predecessor < 0 ? NO_PREDECESSOR_16 : predecessor));
+          } else {
+            buffer.putInt(predecessor);
+          }
+        }
+        buffer.flip();
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.duplicate());
+        rowChecksums[source] = (int) checksum.getValue();
+        try {
+          writeFully(channel, buffer, rowsStart + source * rowBytes);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+
+    ByteBuffer checksums = ByteBuffer.allocate(n * Integer.BYTES);
+    checksums.asIntBuffer().put(rowChecksums);
+    writeFully(channel, checksums, checksumsStart);
+  }
+
+  private static int matrixWidth(int n) {
+    return n < NO_PREDECESSOR_16 ? Short.BYTES : Integer.BYTES;
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  /**
+   * 加载之前构建的最短路径表. 图数据的校验和与结构在加载时检查，前驱矩阵的每一行在第一次查询时校验.
+   *
+   * @param file 最短路径表文件
+   * @return 最短路径表
+   * @throws IOException 如果文件无法读取、格式不正确或校验和不一致
+   */
+  static DistanceOracle load(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      while (header.hasRemaining()) {
+        if (channel.read(header, header.position()) < 0) {
+          throw new IOException("Truncated distance oracle: " + file);
+        }
+      }
+      header.flip();
+      if (header.getInt() != MAGIC) {
+        throw new IOException("Not a distance oracle file: " + file);
+      }
+      int version = header.getInt();
+      if (version != FORMAT_VERSION) {
+        throw new IOException("Unsupported distance oracle version " + version + ": " + file);
+      }
+      int width = header.getInt();
+      long graphBytes = header.getLong();
+      int expectedChecksum = header.getInt();
+      if (graphBytes < 0 || graphBytes > channel.size() - HEADER_SIZE) {
+        throw new IOException("Truncated distance oracle: " + file);
+      }
+
+      MappedByteBuffer graphData =
+          channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, graphBytes);
+      CRC32C checksum = new CRC32C();
+      checksum.update(graphData.duplicate());
+      if ((int) checksum.getValue() != expectedChecksum) {
+        throw new IOException("Distance oracle checksum mismatch: " + file);
+      }
+      CompactGraph graph;
+      try {
+        graph = CompactGraphIo.read(graphData);
+      } catch (RuntimeException e) {
+        throw new IOException("Corrupt distance oracle: " + file, e);
+      }
+
+      int n = graph.size();
+      long checksumsStart = HEADER_SIZE + graphBytes;
+      if (width == 0) {
+        // Too large for a matrix; queries fall back to ALT search
+        if (channel.size() != checksumsStart) {
+          throw new IOException("Corrupt distance oracle: " + file);
+        }
+        return new DistanceOracle(graph, 0, 0, null, new int[0], file);
+      }
+      if (width != matrixWidth(n)) {
+        throw new IOException("Corrupt distance oracle: bad predecessor width " + width);
+      }
+      long rowBytes = (long) n * width;
+      if (n * rowBytes > MAX_MATRIX_BYTES) {
+        throw new IOException("Distance oracle matrix is too large: " + file);
+      }
+      long rowsStart = checksumsStart + (long) n * Integer.BYTES;
+      if (channel.size() != rowsStart + n * rowBytes) {
+        throw new IOException("Truncated distance oracle: " + file);
+      }
+
+      int[] rowChecksums = new int[n];
+      channel.map(FileChannel.MapMode.READ_ONLY, checksumsStart, (long) n * Integer.BYTES)
+          .asIntBuffer().get(rowChecksums);
+
+      // Map the matrix in segments of whole rows, each below the 2 GB mapping limit
+      long maxRows = Integer.MAX_VALUE / Math.max(1, rowBytes);
+      int rowsPerSegment = (int) Math.max(1, Math.min(n, maxRows));
+      int segmentCount = n == 0 ? 0 : (n + rowsPerSegment - 1) / rowsPerSegment;
+      MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+      for (int i = 0; i < segmentCount; i++) {
+        long firstRow = (long) i * rowsPerSegment;
+        long rowCount = Math.min(rowsPerSegment, n - firstRow);
+        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+            rowsStart + firstRow * rowBytes, rowCount * rowBytes);
+      }
+      return new DistanceOracle(graph, width, rowsPerSegment, segments, rowChecksums, file);
+    }
+  }
+
+  // Check the checksum of a source's row the first time it is used
+  private void verifyRow(int source) {
+    if (verifiedRows.get(source) != 0) {
+      return;
+    }
+    int rowBytes = graph.size() * width;
+    CRC32C checksum = new CRC32C();
+    checksum.update(segments[source / rowsPerSegment]
+        .slice((source % rowsPerSegment) * rowBytes, rowBytes));
+    if ((int) checksum.getValue() != rowChecksums[source]) {
+      throw new UncheckedIOException(new IOException(
+          "Distance oracle checksum mismatch in row " + source + ": " + file));
+    }
+    verifiedRows.set(source, 1);
+  }
+
+  // Predecessor of target in the shortest-path tree rooted at source, or -1
+  private int predecessor(int source, int target) {
+    MappedByteBuffer segment = segments[source / rowsPerSegment];
+    int index = ((source % rowsPerSegment) * graph.size() + target) * width;
+    int predecessor;
+    if (width == Short.BYTES) {
+      predecessor = segment.getChar(index);
+      predecessor = predecessor == NO_PREDECESSOR_16 ? -1 : predecessor;
+    } else {
+      predecessor = segment.getInt(index);
+    }
+    if (predecessor < -1 || predecessor >= graph.size()) {
+      throw new UncheckedIOException(new IOException(
+          "Corrupt distance oracle: predecessor " + predecessor + " in row " + source));
+    }
+    return predecessor;
+  }
+
+  /**
+   * 查询两个单词之间的最短路径.
+   *
+   * @param word1 起始单词（不区分大小写）
+   * @param word2 目标单词（不区分大小写）
+   * @return 依次经过的单词，任一单词不存在或不可达时返回空列表
+   * @throws UncheckedIOException 如果用到的前驱行校验和不一致或内容不合法
+   */
+  public List<String> pathBetween(String word1, String word2) {
+    int source = graph.indexOf(word1.toLowerCase());
+    int target = graph.indexOf(word2.toLowerCase());
+    if (source < 0 || target < 0) {
+      return Collections.emptyList();
+    }
+    if (source == target) {
+      return Collections.singletonList(graph.wordAt(source));
+    }
+    if (segments == null) {
+      return searchPath(source, target);
+    }
+    verifyRow(source);
+    if (predecessor(source, target) < 0) {
+      return Collections.emptyList();
+    }
+
+    List<String> path = new ArrayList<>();
+    for (int id = target; id != -1; id = predecessor(source, id)) {
+      if (path.size() == graph.size()) {
+        throw new UncheckedIOException(new IOException(
+            "Corrupt distance oracle: predecessor cycle in row " + source));
+      }
+      path.add(graph.wordAt(id));
+    }
+    Collections.reverse(path);
+    return path;
+  }
+
+  // Without a matrix, answer with an ALT search on the embedded graph
+  private List<String> searchPath(int source, int target) {
+    ShortestPathEngine.Path path = ShortestPathEngine.of(graph).landmarkPath(source, target);
+    if (path == null) {
+      return Collections.emptyList();
+    }
+    List<String> words = new ArrayList<>(path.nodes.length);
+    for (int id : path.nodes) {
+      words.add(graph.wordAt(id));
+    }
+    return words;
+  }
+
+  /**
+   * 查询两个单词之间的最短路径，返回格式与 {@link TextGraphAnalyzer#calcShortestPath(WordGraph, String, String)}
+   * 相同.
+   *
+   * @param word1 起始单词
+   * @param word2 目标单词
+   * @return 描述最短路径的字符串，包括路径和距离
+   */
+  public String describePath(String word1, String word2) {
+    word1 = word1.toLowerCase();
+    word2 = word2.toLowerCase();
+
+    boolean hasWord1 = graph.containsWordNormalized(word1);
+    boolean hasWord2 = graph.containsWordNormalized(word2);
+    if (!hasWord1 || !hasWord2) {
+      return "No " + (!hasWord1 ? word1 : "")
+          + ((!hasWord1 && !hasWord2) ? " or " : "")
+          + (!hasWord2 ? word2 : "") + " in the graph!";
+    }
+
+    List<String> path = pathBetween(word1, word2);
+    if (path.isEmpty()) {
+      return "No path exists from " + word1 + " to " + word2 + "!";
+    }
+
+    // Sum the edge weights along the path
+    long length = 0;
+    for (int i = 1; i < path.size(); i++) {
+      int from = graph.indexOf(path.get(i - 1));
+      length += graph.weight(graph.findEdge(from, graph.indexOf(path.get(i))));
+    }
+    return "Path from " + word1 + " to " + word2 + ": "
+        + String.join(" → ", path) + "\nLength: " + length;
+  }
+}
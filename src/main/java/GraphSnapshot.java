@@ -0,0 +1,180 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * {@code GraphSnapshot} 把构建好的图保存为带版本和校验和的二进制快照，并通过内存映射快速加载.
+ *
+ * <p>文件格式：魔数、格式版本、源文件的大小和修改时间、图数据的字节数、图数据的 CRC32C 校验和，接着是
+ * {@link CompactGraphIo} 编码的图（单词表加整数编号的 CSR 数组）。加载时只需映射文件、校验并批量读取数组，
+ * 不需要重新分词和建立哈希表。头部记录的源文件信息用于判断快照是否仍与源文件一致.
+ */
+final class GraphSnapshot {
+
+  private static final int MAGIC = 0x54475348;
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_SIZE = 2 * Integer.BYTES + 3 * Long.BYTES + Integer.BYTES;
+
+  private GraphSnapshot() {
+  }
+
+  /**
+   * 把图写入快照文件. 先写入同目录下的临时文件再原子地替换，写入失败不会留下损坏的快照.
+   *
+   * @param graph  紧凑图
+   * @param file   快照文件
+   * @param source 建图之前读取的源文件信息，为 null 时不记录源文件信息
+   * @throws IOException 如果写入失败
+   */
+  static void save(CompactGraph graph, Path file, SourceStamp source) throws IOException {
+    long graphBytes = CompactGraphIo.encodedSize(graph);
+    if (HEADER_SIZE + graphBytes > Integer.MAX_VALUE) {
+      throw new IOException("Graph is too large for a snapshot");
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate((int) (HEADER_SIZE + graphBytes));
+    buffer.position(HEADER_SIZE);
+    CompactGraphIo.write(graph, buffer);
+    buffer.flip();
+
+    CRC32C checksum = new CRC32C();
+    checksum.update(buffer.duplicate().position(HEADER_SIZE));
+    buffer.putInt(MAGIC).putInt(FORMAT_VERSION)
+        .putLong(source != null ? source.size : -1)
+        .putLong(source != null ? source.modified : -1)
+        .putLong(graphBytes)
+        .putInt((int) checksum.getValue());
+    buffer.rewind();
+
+    Path absolute = file.toAbsolutePath();
+    Path temp =
+        Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING)) {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+      Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * 检查快照是否仍与源文件一致，即源文件的大小和修改时间与快照中记录的相同.
+   *
+   * @param file   快照文件
+   * @param source 源文本文件当前的信息
+   * @return 快照存在、格式版本正确且与源文件一致时返回 true
+   * @throws IOException 如果读取文件信息失败
+   */
+  static boolean isFresh(Path file, SourceStamp source) throws IOException {
+    if (!Files.isRegularFile(file) || Files.size(file) < HEADER_SIZE) {
+      return false;
+    }
+    ByteBuffer header = readHeader(file);
+    return header.getInt() == MAGIC
+        && header.getInt() == FORMAT_VERSION
+        && header.getLong() == source.size
+        && header.getLong() == source.modified;
+  }
+
+  /**
+   * 加载快照. 文件被内存映射，校验和正确后从映射中把各数组批量复制到堆中的 {@code int[]}：
+   * {@link CompactGraph} 的算法都直接访问数组，因此不直接引用映射的缓冲区.
+   *
+   * @param file 快照文件
+   * @return 紧凑图
+   * @throws IOException 如果文件无法读取、格式不正确或校验和不一致
+   */
+  static CompactGraph load(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_SIZE) {
+        throw new IOException("Truncated graph snapshot: " + file);
+      }
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (mapped.getInt() != MAGIC) {
+        throw new IOException("Not a graph snapshot file: " + file);
+      }
+      int version = mapped.getInt();
+      if (version != FORMAT_VERSION) {
+        throw new IOException("Unsupported graph snapshot version " + version + ": " + file);
+      }
+      mapped.position(mapped.position() + 2 * Long.BYTES);
+      long graphBytes = mapped.getLong();
+      int expected = mapped.getInt();
+      if (graphBytes != channel.size() - HEADER_SIZE) {
+        throw new IOException("Truncated graph snapshot: " + file);
+      }
+
+      CRC32C checksum = new CRC32C();
+      checksum.update(mapped.duplicate());
+      if ((int) checksum.getValue() != expected) {
+        throw new IOException("Graph snapshot checksum mismatch: " + file);
+      }
+      try {
+        return CompactGraphIo.read(mapped);
+      } catch (RuntimeException e) {
+        throw new IOException("Corrupt graph snapshot: " + file, e);
+      }
+    }
+  }
+
+  private static ByteBuffer readHeader(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      while (header.hasRemaining()) {
+        if (channel.read(header) < 0) {
+          break;
+        }
+      }
+      return header.flip();
+    }
+  }
+
+  /**
+   * 源文本文件的大小和修改时间. 必须在读取源文件之前获取，这样建图期间源文件被修改时，
+   * 记录的信息与新内容不符，快照不会被误认为是最新的.
+   */
+  static final class SourceStamp {
+
+    final long size;
+    final long modified;
+
+    private SourceStamp(long size, long modified) {
+      this.size = size;
+      this.modified = modified;
+    }
+
+    /**
+     * 读取源文件当前的大小和修改时间.
+     *
+     * @param source 源文本文件
+     * @return 源文件信息
+     * @throws IOException 如果读取文件信息失败
+     */
+    static SourceStamp of(Path source) throws IOException {
+      return new SourceStamp(Files.size(source), Files.getLastModifiedTime(source).toMillis());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof SourceStamp
+          && ((SourceStamp) o).size == size && ((SourceStamp) o).modified == modified;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(size) * 31 + Long.hashCode(modified);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@code IncrementalGraphLoader} 跟踪一个不断追加内容的文本文件，每次刷新只解析新增的字节并把新的边计数加到同一个
+ * {@link TextGraphAnalyzer.DirectedGraph} 中，刷新的代价只与新增内容的大小有关.
+ *
+ * <p>加载器记录已经处理到的字节偏移和最后一个单词，新内容的第一个单词会与它连成一条边，因此结果与对整个文件调用
+ * {@link TextGraphAnalyzer#createGraphFromFile(String)} 相同。文件末尾尚未以分隔符结束的单词可能还会继续增长，
+ * 它会留到下一次刷新、后面出现分隔符时才加入图中。图被修改后版本号增加，缓存的 PageRank 等分析结果随之失效.
+ */
+public final class IncrementalGraphLoader {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Path file;
+  private final TextGraphAnalyzer.DirectedGraph graph = new TextGraphAnalyzer.DirectedGraph();
+  private long offset;
+  private String lastWord;
+
+  IncrementalGraphLoader(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * 获取正在维护的图. 图只会在 {@link #refresh()} 中被修改.
+   *
+   * @return 有向图
+   */
+  public TextGraphAnalyzer.DirectedGraph graph() {
+    return graph;
+  }
+
+  /**
+   * 获取已经加入图中的内容在文件中的结束偏移.
+   *
+   * @return 字节偏移
+   */
+  public synchronized long offset() {
+    return offset;
+  }
+
+  /**
+   * 读取上次刷新之后追加到文件中的内容，并把其中的相邻单词对加入图中.
+   *
+   * @return 本次刷新加入图中的单词数
+   * @throws IOException 如果读取文件失败，或文件比已处理的部分更短（被截断或替换）
+   */
+  public synchronized long refresh() throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < offset) {
+        throw new IOException("File shrank below the ingested offset " + offset + ": " + file);
+      }
+
+      long[] words = new long[1];
+      WordTokenizer.BigramSink edges = new WordTokenizer.BigramSink(graph, lastWord);
+      WordTokenizer tokenizer = new WordTokenizer(word -> {
+        edges.accept(word);
+        words[0]++;
+      });
+
+      ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+      long position = offset;
+      while (position < size) {
+        buffer.clear();
+        int read = channel.read(buffer, position);
+        if (read < 0) {
+          break;
+        }
+        position += read;
+        buffer.flip();
+        tokenizer.feed(buffer);
+      }
+
+      // Leave a word that runs up to the end of the file for the next refresh
+      offset = position - tokenizer.pendingLength();
+      lastWord = edges.previous();
+      return words[0];
+    }
+  }
+}
@@ -0,0 +1,463 @@
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@code KGramGraph} 是 k 元语法图：节点是文本中连续出现的 k−1 个单词（上下文），从上下文
+ * {@code (w1, ..., wk-1)} 到 {@code (w2, ..., wk)} 的边表示 k 元组 {@code (w1, ..., wk)}，权重为其出现次数.
+ * 节点只来自至少出现在一个 k 元组中的上下文，因此少于 k 个单词的文本不产生任何节点；k = 2 时节点和边与
+ * {@link TextGraphAnalyzer.DirectedGraph} 相同（单词编号顺序除外）.
+ *
+ * <p>上下文以单词编号的定长元组存放在一个 {@code int[]} 中，并用开放寻址表按元组查找，不会为每个上下文拼接字符串；
+ * 边与 {@link CompactGraph} 一样以 CSR 数组存放。通过 {@link WordGraph} 接口访问时，上下文的名称是用空格连接的单词，
+ * 例如 {@code "the old"}，只在需要时才生成，因此桥接词、最短路径、PageRank 和随机游走等操作都可以直接使用.
+ */
+public final class KGramGraph implements WordGraph {
+
+  private final int order;
+  private final String[] vocabulary;
+  private final Map<String, Integer> wordIds;
+  private final int[] contextWords;
+  private final int[] slots;
+  private final int contextCount;
+  private final int[] offsets;
+  private final int[] targets;
+  private final int[] weights;
+  private final AnalysisCache analysisCache = new AnalysisCache();
+
+  private KGramGraph(Builder builder, int[] offsets, int[] targets, int[] weights) {
+    this.order = builder.order;
+    this.vocabulary = builder.vocabulary.toArray(new String[0]);
+    this.wordIds = builder.wordIds;
+    this.contextWords = builder.contextWords;
+    this.slots = builder.slots;
+    this.contextCount = builder.contextCount;
+    this.offsets = offsets;
+    this.targets = targets;
+    this.weights = weights;
+  }
+
+  /**
+   * 获取元数 k.
+   *
+   * @return 每条边对应的单词数
+   */
+  public int order() {
+    return order;
+  }
+
+  /**
+   * 查找上下文的编号.
+   *
+   * @param context 用单个空格连接的 k−1 个小写单词
+   * @return 上下文编号，不存在时返回 -1
+   */
+  public int indexOf(String context) {
+    String[] parts = context.split(" ", -1);
+    if (parts.length != order - 1) {
+      return -1;
+    }
+    int[] key = new int[order - 1];
+    for (int i = 0; i < parts.length; i++) {
+      Integer id = wordIds.get(parts[i]);
+      if (id == null) {
+        return -1;
+      }
+      key[i] = id;
+    }
+    return findContext(slots, contextWords, key, order - 1);
+  }
+
+  /**
+   * 获取上下文的名称.
+   *
+   * @param id 上下文编号
+   * @return 用空格连接的单词
+   */
+  public String contextAt(int id) {
+    int width = order - 1;
+    StringBuilder name = new StringBuilder();
+    for (int i = 0; i < width; i++) {
+      if (i > 0) {
+        name.append(' ');
+      }
+      name.append(vocabulary[contextWords[id * width + i]]);
+    }
+    return name.toString();
+  }
+
+  /**
+   * 冻结为 {@link CompactGraph}，供基于编号的算法使用. 上下文编号保持不变，结果会被缓存.
+   *
+   * @return 紧凑图
+   */
+  @Override
+  public CompactGraph freeze() {
+    return cachedAnalysis(CompactGraph.class, () -> {
+      String[] names = new String[contextCount];
+      for (int id = 0; id < contextCount; id++) {
+        names[id] = contextAt(id);
+      }
+      return CompactGraph.fromArrays(names, offsets, targets, weights);
+    });
+  }
+
+  @Override
+  public boolean containsWord(String word) {
+    return containsWordNormalized(word.toLowerCase());
+  }
+
+  @Override
+  public boolean containsWordNormalized(String word) {
+    return indexOf(word) >= 0;
+  }
+
+  @Override
+  public Map<String, Integer> getNeighbors(String word) {
+    return getNeighborsNormalized(word.toLowerCase());
+  }
+
+  @Override
+  public Map<String, Integer> getNeighborsNormalized(String word) {
+    int id = indexOf(word);
+    if (id < 0) {
+      return Collections.emptyMap();
+    }
+    return new RowMap(id);
+  }
+
+  @Override
+  public Set<String> getAllWords() {
+    return new AbstractSet<>() {
+      @Override
+      public boolean contains(Object o) {
+        return o instanceof String && indexOf((String) o) >= 0;
+      }
+
+      @Override
+      public Iterator<String> iterator() {
+        return new Iterator<>() {
+          private int id;
+
+          @Override
+          public boolean hasNext() {
+            return id < contextCount;
+          }
+
+          @Override
+          public String next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            return contextAt(id++);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return contextCount;
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return contextCount;
+  }
+
+  // The graph is immutable, so cached results never go stale
+  @Override
+  public <T> T cachedAnalysis(Object key, Supplier<T> computation) {
+    return analysisCache.get(0, key, computation);
+  }
+
+  @Override
+  public <S, T> T updatedAnalysis(Object key, Function<S, T> computation,
+      Function<T, S> seedOf) {
+    return analysisCache.getUpdated(0, key, computation, seedOf);
+  }
+
+  private static int hash(int[] words, int start, int width) {
+    int h = 1;
+    for (int i = 0; i < width; i++) {
+      h = 31 * h + words[start + i];
+    }
+    return h ^ (h >>> 16);
+  }
+
+  // Find the id of a context tuple in an open-addressing table whose slots hold id + 1
+  private static int findContext(int[] slots, int[] contextWords, int[] key, int width) {
+    int mask = slots.length - 1;
+    int slot = hash(key, 0, width) & mask;
+    while (slots[slot] != 0) {
+      int id = slots[slot] - 1;
+      if (Arrays.equals(contextWords, id * width, id * width + width, key, 0, width)) {
+        return id;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * 一行 CSR 的只读 {@link Map} 视图，键为上下文名称.
+   */
+  private final class RowMap extends AbstractMap<String, Integer> {
+
+    private final int id;
+
+    RowMap(int id) {
+      this.id = id;
+    }
+
+    @Override
+    public Integer get(Object key) {
+      int edge = edgeTo(key);
+      return edge >= 0 ? weights[edge] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return edgeTo(key) >= 0;
+    }
+
+    private int edgeTo(Object key) {
+      if (!(key instanceof String)) {
+        return -1;
+      }
+      int to = indexOf((String) key);
+      if (to < 0) {
+        return -1;
+      }
+      int edge = Arrays.binarySearch(targets, offsets[id], offsets[id + 1], to);
+      return edge >= 0 ? edge : -1;
+    }
+
+    @Override
+    public int size() {
+      return offsets[id + 1] - offsets[id];
+    }
+
+    @Override
+    public Set<Entry<String, Integer>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public Iterator<Entry<String, Integer>> iterator() {
+          return new Iterator<>() {
+            private int edge = offsets[id];
+
+            @Override
+            public boolean hasNext() {
+              return edge < offsets[id + 1];
+            }
+
+            @Override
+            public Entry<String, Integer> next() {
+              if (!hasNext()) {
+                throw new NoSuchElementException();
+              }
+              Entry<String, Integer> entry =
+                  new SimpleImmutableEntry<>(contextAt(targets[edge]), weights[edge]);
+              edge++;
+              return entry;
+            }
+          };
+        }
+
+        @Override
+        public int size() {
+          return RowMap.this.size();
+        }
+      };
+    }
+  }
+
+  /**
+   * 逐个接收单词并统计 k 元组的构建器. 每个 k 元组打包为一个 {@code long}（起点和终点上下文编号），在开放寻址表中
+   * 边接收边计数，内存只随不同 k 元组的数量增长，与文本长度无关；构建时把表中的项排序得到 CSR 数组.
+   */
+  static final class Builder implements WordTokenizer.WordSink {
+
+    private final int order;
+    private final Map<String, Integer> wordIds = new HashMap<>();
+    private final List<String> vocabulary = new ArrayList<>();
+    private final int[] window;
+    private int filled;
+    private int previous = -1;
+
+    private int[] contextWords = new int[16];
+    private int[] slots = new int[16];
+    private int contextCount;
+
+    // Open-addressing counts of packed (from, to) pairs; a count of 0 marks an empty slot
+    private long[] transitions = new long[16];
+    private int[] transitionCounts = new int[16];
+    private int transitionCount;
+
+    /**
+     * 创建构建器.
+     *
+     * @param order 元数 k，至少为 2
+     * @throws IllegalArgumentException 如果 k 小于 2
+     */
+    Builder(int order) {
+      if (order < 2) {
+        throw new IllegalArgumentException("Order must be at least 2: " + order);
+      }
+      this.order = order;
+      this.window = new int[order - 1];
+    }
+
+    @Override
+    public void accept(String word) {
+      Integer id = wordIds.get(word);
+      if (id == null) {
+        id = vocabulary.size();
+        wordIds.put(word, id);
+        vocabulary.add(word);
+      }
+
+      int width = order - 1;
+      if (filled < width) {
+        window[filled++] = id;
+        return;
+      }
+      if (previous < 0) {
+        // Register the first context only once a k-gram follows it, as DirectedGraph does
+        previous = contextId();
+      }
+
+      System.arraycopy(window, 1, window, 0, width - 1);
+      window[width - 1] = id;
+      int next = contextId();
+      count(((long) previous << 32) | next);
+      previous = next;
+    }
+
+    private void count(long transition) {
+      int mask = transitions.length - 1;
+      int slot = spread(transition) & mask;
+      while (transitionCounts[slot] != 0) {
+        if (transitions[slot] == transition) {
+          transitionCounts[slot]++;
+          return;
+        }
+        slot = (slot + 1) & mask;
+      }
+      transitions[slot] = transition;
+      transitionCounts[slot] = 1;
+      if (++transitionCount * 2 > transitions.length) {
+        growTransitions();
+      }
+    }
+
+    private void growTransitions() {
+      long[] oldKeys = transitions;
+      int[] oldCounts = transitionCounts;
+      transitions = new long[oldKeys.length * 2];
+      transitionCounts = new int[oldKeys.length * 2];
+      int mask = transitions.length - 1;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldCounts[i] != 0) {
+          int slot = spread(oldKeys[i]) & mask;
+          while (transitionCounts[slot] != 0) {
+            slot = (slot + 1) & mask;
+          }
+          transitions[slot] = oldKeys[i];
+          transitionCounts[slot] = oldCounts[i];
+        }
+      }
+    }
+
+    private static int spread(long transition) {
+      long h = transition * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32));
+    }
+
+    // Get the id of the context in the window, adding it if it is new
+    private int contextId() {
+      int width = order - 1;
+      int id = findContext(slots, contextWords, window, width);
+      if (id >= 0) {
+        return id;
+      }
+
+      id = contextCount++;
+      if (contextCount * width > contextWords.length) {
+        contextWords = Arrays.copyOf(contextWords, Math.max(contextWords.length * 2,
+            contextCount * width));
+      }
+      System.arraycopy(window, 0, contextWords, id * width, width);
+      if (contextCount * 2 > slots.length) {
+        rehash(slots.length * 2);
+      } else {
+        insert(slots, id);
+      }
+      return id;
+    }
+
+    private void rehash(int capacity) {
+      int[] table = new int[capacity];
+      for (int id = 0; id < contextCount; id++) {
+        insert(table, id);
+      }
+      slots = table;
+    }
+
+    private void insert(int[] table, int id) {
+      int width = order - 1;
+      int mask = table.length - 1;
+      int slot = hash(contextWords, id * width, width) & mask;
+      while (table[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      table[slot] = id + 1;
+    }
+
+    /**
+     * 由已接收的单词构建 k 元语法图.
+     *
+     * @return k 元语法图
+     */
+    KGramGraph build() {
+      // Sorting the packed (from, to) pairs groups every row and orders it by target id
+      long[] keys = new long[transitionCount];
+      int m = 0;
+      for (int i = 0; i < transitions.length; i++) {
+        if (transitionCounts[i] != 0) {
+          keys[m++] = transitions[i];
+        }
+      }
+      Arrays.sort(keys);
+
+      int[] offsets = new int[contextCount + 1];
+      int[] targets = new int[m];
+      int[] weights = new int[m];
+      int mask = transitions.length - 1;
+      for (int e = 0; e < m; e++) {
+        int slot = spread(keys[e]) & mask;
+        while (transitionCounts[slot] == 0 || transitions[slot] != keys[e]) {
+          slot = (slot + 1) & mask;
+        }
+        offsets[(int) (keys[e] >>> 32) + 1]++;
+        targets[e] = (int) keys[e];
+        weights[e] = transitionCounts[slot];
+      }
+      for (int id = 0; id < contextCount; id++) {
+        offsets[id + 1] += offsets[id];
+      }
+      return new KGramGraph(this, offsets, targets, weights);
+    }
+  }
+}
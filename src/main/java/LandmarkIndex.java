@@ -0,0 +1,113 @@
+import java.util.Arrays;
+
+/**
+ * {@code LandmarkIndex} 保存少量地标单词到所有单词以及所有单词到地标的最短距离，用作 A* 搜索的下界（ALT）.
+ *
+ * <p>对地标 L，由三角不等式可得 d(v, t) ≥ d(L, t) − d(L, v) 以及 d(v, t) ≥ d(v, L) − d(t, L)，
+ * 取所有地标中最大的值作为 v 到 t 的距离下界。地标按“最远点”策略选取：第一个是出度最大的单词，
+ * 之后每次选择离已选地标最远（或不可达）的单词，使地标分散在图的不同区域.
+ *
+ * <p>每个地标需要一次前向和一次后向的完整 Dijkstra，索引在每个紧凑图上只构建一次，可通过 {@link #of(CompactGraph)} 获取.
+ */
+final class LandmarkIndex {
+
+  static final int DEFAULT_LANDMARKS = 8;
+
+  private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  private final int[] landmarks;
+  private final int[][] fromLandmark;
+  private final int[][] toLandmark;
+
+  private LandmarkIndex(CompactGraph graph, int count) {
+    int n = graph.size();
+    count = Math.min(count, n);
+    landmarks = new int[count];
+    fromLandmark = new int[count][];
+    toLandmark = new int[count][];
+
+    ShortestPathEngine.Search search = new ShortestPathEngine.Search(n);
+    long[] closest = new long[n];
+    Arrays.fill(closest, Long.MAX_VALUE);
+
+    int next = highestOutDegree(graph);
+    for (int i = 0; i < count; i++) {
+      landmarks[i] = next;
+      search.run(graph, next, -1);
+      fromLandmark[i] = snapshot(search, n);
+      search.runBackward(graph, next);
+      toLandmark[i] = snapshot(search, n);
+
+      // The next landmark is the word farthest from all chosen ones; unreachable words come first
+      next = -1;
+      for (int id = 0; id < n; id++) {
+        closest[id] = Math.min(closest[id], fromLandmark[i][id]);
+        if (next < 0 || closest[id] > closest[next]) {
+          next = id;
+        }
+      }
+    }
+  }
+
+  /**
+   * 获取紧凑图对应的地标索引，第一次使用时构建.
+   *
+   * @param graph 紧凑图
+   * @return 地标索引
+   */
+  static LandmarkIndex of(CompactGraph graph) {
+    return graph.cachedAnalysis(LandmarkIndex.class,
+        () -> new LandmarkIndex(graph, DEFAULT_LANDMARKS));
+  }
+
+  private static int highestOutDegree(CompactGraph graph) {
+    int best = 0;
+    for (int id = 1; id < graph.size(); id++) {
+      if (graph.edgeEnd(id) - graph.edgeStart(id) > graph.edgeEnd(best) - graph.edgeStart(best)) {
+        best = id;
+      }
+    }
+    return best;
+  }
+
+  // Copy the distances of a finished search, clamping unreachable or huge values to UNREACHABLE
+  private static int[] snapshot(ShortestPathEngine.Search search, int n) {
+    int[] distances = new int[n];
+    for (int id = 0; id < n; id++) {
+      long distance = search.distance(id);
+      distances[id] = distance >= UNREACHABLE ? UNREACHABLE : (int) distance;
+    }
+    return distances;
+  }
+
+  /**
+   * 计算从 {@code v} 到 {@code target} 的最短距离的下界. 涉及不可达距离的项会被跳过，下界至少为 0.
+   *
+   * @param v      单词编号
+   * @param target 目标单词编号
+   * @return 距离下界
+   */
+  long lowerBound(int v, int target) {
+    long bound = 0;
+    for (int i = 0; i < landmarks.length; i++) {
+      int[] from = fromLandmark[i];
+      if (from[v] != UNREACHABLE && from[target] != UNREACHABLE) {
+        bound = Math.max(bound, (long) from[target] - from[v]);
+      }
+      int[] to = toLandmark[i];
+      if (to[v] != UNREACHABLE && to[target] != UNREACHABLE) {
+        bound = Math.max(bound, (long) to[v] - to[target]);
+      }
+    }
+    return bound;
+  }
+
+  /**
+   * 获取地标的数量.
+   *
+   * @return 地标数
+   */
+  int size() {
+    return landmarks.length;
+  }
+}
@@ -0,0 +1,127 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * {@code MarkovTextGenerator} 把 {@link CompactGraph} 的边权重看作二元组转移次数，按马尔可夫链逐词生成文本.
+ *
+ * <p>构建时为每个单词把出边按权重从大到小排序，只保留前 {@code topK} 条，并把权重按温度变换为
+ * {@code (w / wmax)^(1 / temperature)} 后存为累积和数组。生成时每个单词只需一次随机数和一次二分查找，代价为
+ * O(log d)。温度小于 1 时偏向高频搭配，大于 1 时分布更平坦.
+ *
+ * <p>生成器不可变，可以被多个线程同时使用；每个图缓存最近使用的几个 (温度, topK) 组合的生成器，可通过
+ * {@link #of(CompactGraph, double, int)} 获取.
+ */
+final class MarkovTextGenerator {
+
+  private final CompactGraph graph;
+  private final int[] offsets;
+  private final int[] choices;
+  private final double[] cumulative;
+
+  private MarkovTextGenerator(CompactGraph graph, double temperature, int topK) {
+    this.graph = graph;
+    int n = graph.size();
+    offsets = new int[n + 1];
+    for (int id = 0; id < n; id++) {
+      offsets[id + 1] = offsets[id] + Math.min(graph.edgeEnd(id) - graph.edgeStart(id), topK);
+    }
+    choices = new int[offsets[n]];
+    cumulative = new double[offsets[n]];
+
+    long[] packed = new long[0];
+    for (int id = 0; id < n; id++) {
+      int start = graph.edgeStart(id);
+      int degree = graph.edgeEnd(id) - start;
+      if (degree == 0) {
+        continue;
+      }
+
+      // Sort the row by descending weight, then by target id, packed into longs
+      if (packed.length < degree) {
+        packed = new long[degree];
+      }
+      for (int i = 0; i < degree; i++) {
+        packed[i] = ((long) -graph.weight(start + i) << 32) | graph.target(start + i);
+      }
+      Arrays.sort(packed, 0, degree);
+
+      double maxWeight = -(packed[0] >> 32);
+      double total = 0;
+      for (int i = 0, slot = offsets[id]; slot < offsets[id + 1]; i++, slot++) {
+        choices[slot] = (int) packed[i];
+        total += Math.pow(-(packed[i] >> 32) / maxWeight, 1.0 / temperature);
+        cumulative[slot] = total;
+      }
+    }
+  }
+
+  /**
+   * 获取指定参数的生成器，第一次使用时构建.
+   *
+   * @param graph       紧凑图
+   * @param temperature 温度，必须大于 0
+   * @param topK        每个单词最多考虑的后继数
+   * @return 文本生成器
+   */
+  static MarkovTextGenerator of(CompactGraph graph, double temperature, int topK) {
+    return graph.cachedAnalysis(
+        AnalysisCache.parameterized(MarkovTextGenerator.class, temperature, topK),
+        () -> new MarkovTextGenerator(graph, temperature, topK));
+  }
+
+  /**
+   * 按转移概率抽取下一个单词.
+   *
+   * @param id     当前单词编号
+   * @param random 随机数生成器
+   * @return 下一个单词的编号，没有后继时返回 -1
+   */
+  int next(int id, RandomGenerator random) {
+    int start = offsets[id];
+    int end = offsets[id + 1];
+    if (start == end) {
+      return -1;
+    }
+    double r = random.nextDouble() * cumulative[end - 1];
+
+    // Find the first cumulative sum above r; buckets that rounded to zero are never chosen
+    int low = start;
+    int high = end - 1;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (cumulative[mid] > r) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    return choices[low];
+  }
+
+  /**
+   * 从 {@code start} 开始走 {@code length} 个节点，并按 {@link CompactGraph#emittedAt(int, int)} 逐个写出，
+   * 用空格分隔. 走到没有后继的节点时，从随机节点重新开始。在 k 元语法图上，第一个上下文完整输出，之后每一步
+   * 只输出新增的单词.
+   *
+   * @param start  起始单词编号
+   * @param length 生成的单词数
+   * @param random 随机数生成器
+   * @param out    输出目标
+   * @throws IOException 如果写出失败
+   */
+  void generate(int start, int length, RandomGenerator random, Appendable out)
+      throws IOException {
+    int previous = -1;
+    int current = start;
+    for (int i = 0; i < length; i++) {
+      if (i > 0) {
+        out.append(' ');
+        int next = next(current, random);
+        previous = current;
+        current = next >= 0 ? next : random.nextInt(graph.size());
+      }
+      out.append(graph.emittedAt(previous, current));
+    }
+  }
+}
@@ -0,0 +1,167 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * {@code PageRankEngine} 在 {@link CompactGraph} 的数组上执行 PageRank 幂迭代.
+ *
+ * <p>每个单词的出边权重之和只计算一次。每次迭代先求出每个节点向每单位边权重分配的值以及悬挂节点的总贡献，
+ * 再由每个节点沿入边“拉取”前驱节点的贡献。每个节点只写自己的新值，因此节点区间可以在 fork-join
+ * 线程池上并行处理而不存在写竞争.
+ */
+final class PageRankEngine {
+
+  // Node ranges smaller than this are processed on a single thread
+  private static final int BLOCK_SIZE = 4096;
+
+  private final CompactGraph graph;
+  private final ForkJoinPool pool;
+  private final int n;
+  private final long[] outWeights;
+  private final double[] share;
+  private double[] rank;
+  private double[] newRank;
+
+  PageRankEngine(CompactGraph graph, ForkJoinPool pool) {
+    this.graph = graph;
+    this.pool = pool;
+    this.n = graph.size();
+    this.outWeights = new long[n];
+    this.share = new double[n];
+    this.rank = new double[n];
+    this.newRank = new double[n];
+
+    for (int id = 0; id < n; id++) {
+      long total = 0;
+      for (int e = graph.edgeStart(id); e < graph.edgeEnd(id); e++) {
+        total += graph.weight(e);
+      }
+      outWeights[id] = total;
+    }
+  }
+
+  /**
+   * 从均匀分布开始迭代直到收敛.
+   *
+   * @param damping       阻尼系数
+   * @param tolerance     L1 收敛容差
+   * @param maxIterations 最大迭代次数
+   * @return 计算结果
+   */
+  PageRankResult run(double damping, double tolerance, int maxIterations) {
+    double[] uniform = new double[n];
+    Arrays.fill(uniform, 1.0 / n);
+    return run(damping, tolerance, maxIterations, uniform);
+  }
+
+  /**
+   * 从给定的 rank 向量开始迭代直到收敛. 起点越接近结果，需要的迭代次数越少.
+   *
+   * @param damping       阻尼系数
+   * @param tolerance     L1 收敛容差
+   * @param maxIterations 最大迭代次数
+   * @param initial       初始 rank 向量，长度等于单词数，和为 1
+   * @return 计算结果
+   */
+  PageRankResult run(double damping, double tolerance, int maxIterations, double[] initial) {
+    if (n == 0) {
+      return new PageRankResult(graph, new double[0], 0, true);
+    }
+    System.arraycopy(initial, 0, rank, 0, n);
+
+    int iterations = 0;
+    boolean converged = false;
+    while (iterations < maxIterations && !converged) {
+      converged = iterate(damping) < tolerance;
+      iterations++;
+    }
+
+    // 归一化 rank 值
+    double sum = 0;
+    for (double r : rank) {
+      sum += r;
+    }
+    double[] result = rank.clone();
+    if (Math.abs(sum - 1.0) > 0.001) {
+      for (int id = 0; id < n; id++) {
+        result[id] /= sum;
+      }
+    }
+    return new PageRankResult(graph, result, iterations, converged);
+  }
+
+  // One power iteration; returns the L1 distance between the old and new rank vectors
+  private double iterate(double damping) {
+    // Per-unit-weight share of every node, and the total rank held by dangling nodes
+    double dangling = pool.invoke(new RangeTask((lo, hi) -> {
+      double danglingRank = 0;
+      for (int id = lo; id < hi; id++) {
+        if (outWeights[id] == 0) {
+          share[id] = 0;
+          danglingRank += rank[id];
+        } else {
+          share[id] = damping * rank[id] / outWeights[id];
+        }
+      }
+      return danglingRank;
+    }, 0, n));
+
+    // Every node receives the teleport and dangling mass, then pulls from its predecessors
+    double base = (1 - damping) / n + damping * dangling / n;
+    double delta = pool.invoke(new RangeTask((lo, hi) -> {
+      double partialDelta = 0;
+      for (int id = lo; id < hi; id++) {
+        double value = base;
+        for (int e = graph.inEdgeStart(id); e < graph.inEdgeEnd(id); e++) {
+          value += share[graph.source(e)] * graph.inWeight(e);
+        }
+        newRank[id] = value;
+        partialDelta += Math.abs(value - rank[id]);
+      }
+      return partialDelta;
+    }, 0, n));
+
+    double[] temp = rank;
+    rank = newRank;
+    newRank = temp;
+    return delta;
+  }
+
+  /**
+   * 处理节点区间 [lo, hi) 并返回一个部分和的函数.
+   */
+  private interface RangeFunction {
+
+    double apply(int lo, int hi);
+  }
+
+  /**
+   * 把节点区间二分成若干块并行处理，并把各块的返回值求和.
+   */
+  private static final class RangeTask extends RecursiveTask<Double> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final RangeFunction function;
+    private final int lo;
+    private final int hi;
+
+    RangeTask(RangeFunction function, int lo, int hi) {
+      this.function = function;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected Double compute() {
+      if (hi - lo <= BLOCK_SIZE) {
+        return function.apply(lo, hi);
+      }
+      int mid = (lo + hi) >>> 1;
+      RangeTask left = new RangeTask(function, lo, mid);
+      left.fork();
+      double right = new RangeTask(function, mid, hi).compute();
+      return right + left.join();
+    }
+  }
+}
@@ -0,0 +1,125 @@
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * {@code PageRankResult} 保存一次 PageRank 计算得到的全部单词的 PageRank 值，以及迭代的次数.
+ *
+ * <p>PageRank 值按 {@link CompactGraph} 的单词编号存放在 {@code double[]} 中，{@link #asMap()} 只是其上的只读视图.
+ */
+public final class PageRankResult {
+
+  private final CompactGraph graph;
+  private final double[] ranks;
+  private final int iterations;
+  private final boolean converged;
+
+  PageRankResult(CompactGraph graph, double[] ranks, int iterations, boolean converged) {
+    this.graph = graph;
+    this.ranks = ranks;
+    this.iterations = iterations;
+    this.converged = converged;
+  }
+
+  /**
+   * 获取指定单词的 PageRank 值.
+   *
+   * @param word 单词（不区分大小写）
+   * @return PageRank 值，单词不存在时返回 -1.0
+   */
+  public double get(String word) {
+    int id = graph.indexOf(word.toLowerCase());
+    return id >= 0 ? ranks[id] : -1.0;
+  }
+
+  /**
+   * 获取指定编号单词的 PageRank 值.
+   *
+   * @param id {@link #graph()} 中的单词编号
+   * @return PageRank 值
+   */
+  public double rank(int id) {
+    return ranks[id];
+  }
+
+  /**
+   * 获取计算所基于的紧凑图，其单词编号与 {@link #rank(int)} 一致.
+   *
+   * @return 紧凑图
+   */
+  public CompactGraph graph() {
+    return graph;
+  }
+
+  /**
+   * 获取全部单词的 PageRank 值.
+   *
+   * @return 单词到 PageRank 值的只读映射
+   */
+  public Map<String, Double> asMap() {
+    return new AbstractMap<>() {
+      @Override
+      public Double get(Object key) {
+        int id = key instanceof String ? graph.indexOf((String) key) : -1;
+        return id >= 0 ? ranks[id] : null;
+      }
+
+      @Override
+      public boolean containsKey(Object key) {
+        return key instanceof String && graph.indexOf((String) key) >= 0;
+      }
+
+      @Override
+      public Set<Entry<String, Double>> entrySet() {
+        return new AbstractSet<>() {
+          @Override
+          public Iterator<Entry<String, Double>> iterator() {
+            return new Iterator<>() {
+              private int id;
+
+              @Override
+              public boolean hasNext() {
+                return id < ranks.length;
+              }
+
+              @Override
+              public Entry<String, Double> next() {
+                if (!hasNext()) {
+                  throw new NoSuchElementException();
+                }
+                int current = id++;
+                return new SimpleImmutableEntry<>(graph.wordAt(current), ranks[current]);
+              }
+            };
+          }
+
+          @Override
+          public int size() {
+            return ranks.length;
+          }
+        };
+      }
+    };
+  }
+
+  /**
+   * 获取实际执行的迭代次数.
+   *
+   * @return 迭代次数
+   */
+  public int iterations() {
+    return iterations;
+  }
+
+  /**
+   * 判断迭代是否在达到最大次数之前收敛.
+   *
+   * @return 两次迭代之间的 L1 变化量低于容差时返回 true
+   */
+  public boolean converged() {
+    return converged;
+  }
+}
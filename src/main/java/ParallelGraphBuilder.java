@@ -0,0 +1,211 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * {@code ParallelGraphBuilder} 使用内存映射和 fork-join 并行地从大文本文件构建有向图.
+ *
+ * <p>文件被切分为若干块，块的边界总是落在非字母字节上，因此不会有单词被切开。每个块独立生成一张局部的边计数表，
+ * 并记录块中第一个和最后一个单词；合并相邻块时，把左块的最后一个单词和右块的第一个单词连成一条边，
+ * 这样得到的图与顺序扫描完全相同。
+ */
+final class ParallelGraphBuilder {
+
+  static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+  private static final int PROBE_SIZE = 256;
+
+  private ParallelGraphBuilder() {
+  }
+
+  /**
+   * 并行构建有向图.
+   *
+   * @param path      文本文件路径
+   * @param pool      执行分块任务的线程池
+   * @param chunkSize 每个块的目标字节数
+   * @return 构建好的有向图
+   * @throws IOException 如果读取或映射文件失败
+   */
+  static TextGraphAnalyzer.DirectedGraph build(Path path, ForkJoinPool pool, int chunkSize)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long[] bounds = chunkBoundaries(channel, chunkSize);
+
+      ChunkResult result;
+      try {
+        result = pool.invoke(new ChunkTask(channel, bounds, 0, bounds.length - 1));
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+
+      TextGraphAnalyzer.DirectedGraph graph = new TextGraphAnalyzer.DirectedGraph();
+      for (Map.Entry<String, Map<String, Integer>> row : result.edges.entrySet()) {
+        String from = row.getKey();
+        for (Map.Entry<String, Integer> edge : row.getValue().entrySet()) {
+          graph.addEdgeNormalized(from, edge.getKey(), edge.getValue());
+        }
+      }
+      return graph;
+    }
+  }
+
+  /**
+   * 计算块边界. 每个名义边界向后移动到第一个非字母字节，保证单词不会跨块.
+   *
+   * @return 边界数组，第 i 块为 [bounds[i], bounds[i + 1])
+   */
+  private static long[] chunkBoundaries(FileChannel channel, int chunkSize) throws IOException {
+    long size = channel.size();
+    int chunks = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+    long[] bounds = new long[chunks + 1];
+    ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+
+    int count = 1;
+    long position = 0;
+    while (count < chunks) {
+      position = Math.max(position, (long) count * chunkSize);
+      position = skipWord(channel, probe, position, size);
+      if (position >= size) {
+        break;
+      }
+      bounds[count++] = position;
+    }
+    bounds[count] = size;
+
+    if (count < chunks) {
+      long[] trimmed = new long[count + 1];
+      System.arraycopy(bounds, 0, trimmed, 0, count + 1);
+      return trimmed;
+    }
+    return bounds;
+  }
+
+  // Advance from position to the first byte that is not a letter
+  private static long skipWord(FileChannel channel, ByteBuffer probe, long position, long size)
+      throws IOException {
+    while (position < size) {
+      probe.clear();
+      int read = channel.read(probe, position);
+      if (read <= 0) {
+        return size;
+      }
+      for (int i = 0; i < read; i++) {
+        if (!WordTokenizer.isLetter(probe.get(i))) {
+          return position + i;
+        }
+      }
+      position += read;
+    }
+    return size;
+  }
+
+  /**
+   * 一段连续块的统计结果：局部边计数表，以及该段的第一个和最后一个单词.
+   */
+  private static final class ChunkResult implements WordTokenizer.WordSink {
+
+    private Map<String, Map<String, Integer>> edges = new HashMap<>();
+    private String first;
+    private String last;
+
+    @Override
+    public void accept(String word) {
+      if (last == null) {
+        first = word;
+      } else {
+        addEdge(last, word, 1);
+      }
+      last = word;
+    }
+
+    private void addEdge(String from, String to, int count) {
+      edges.computeIfAbsent(from, k -> new HashMap<>()).merge(to, count, Integer::sum);
+    }
+
+    // Merge the result of the segment directly to the right of this one
+    ChunkResult merge(ChunkResult right) {
+      if (right.edges.size() > edges.size()) {
+        Map<String, Map<String, Integer>> smaller = edges;
+        edges = right.edges;
+        right.edges = smaller;
+      }
+      for (Map.Entry<String, Map<String, Integer>> row : right.edges.entrySet()) {
+        for (Map.Entry<String, Integer> edge : row.getValue().entrySet()) {
+          addEdge(row.getKey(), edge.getKey(), edge.getValue());
+        }
+      }
+
+      // Stitch the bigram that spans the boundary between the two segments
+      if (last != null && right.first != null) {
+        addEdge(last, right.first, 1);
+      }
+      if (first == null) {
+        first = right.first;
+      }
+      if (right.last != null) {
+        last = right.last;
+      }
+      return this;
+    }
+  }
+
+  /**
+   * 处理 bounds[lo] 到 bounds[hi] 之间若干块的 fork-join 任务.
+   */
+  private static final class ChunkTask extends RecursiveTask<ChunkResult> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final FileChannel channel;
+    private final long[] bounds;
+    private final int lo;
+    private final int hi;
+
+    ChunkTask(FileChannel channel, long[] bounds, int lo, int hi) {
+      this.channel = channel;
+      this.bounds = bounds;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected ChunkResult compute() {
+      if (hi - lo == 1) {
+        return scanChunk();
+      }
+      int mid = (lo + hi) >>> 1;
+      ChunkTask left = new ChunkTask(channel, bounds, lo, mid);
+      ChunkTask right = new ChunkTask(channel, bounds, mid, hi);
+      left.fork();
+      ChunkResult rightResult = right.compute();
+      return left.join().merge(rightResult);
+    }
+
+    private ChunkResult scanChunk() {
+      ChunkResult result = new ChunkResult();
+      long start = bounds[lo];
+      long length = bounds[hi] - start;
+      if (length == 0) {
+        return result;
+      }
+      try {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        WordTokenizer tokenizer = new WordTokenizer(result);
+        tokenizer.feed(buffer);
+        tokenizer.finish();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return result;
+    }
+  }
+}
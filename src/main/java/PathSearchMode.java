@@ -0,0 +1,21 @@
+/**
+ * {@code PathSearchMode} 指定 {@link TextGraphAnalyzer#calcShortestPath(WordGraph, String, String,
+ * PathSearchMode)} 使用的搜索算法. 所有模式得到的最短路径长度都相同.
+ */
+public enum PathSearchMode {
+
+  /**
+   * 从起点出发的单向 Dijkstra.
+   */
+  DIJKSTRA,
+
+  /**
+   * 同时从起点沿出边、从终点沿入边扩展的双向 Dijkstra，通常需要确定的节点更少.
+   */
+  BIDIRECTIONAL,
+
+  /**
+   * 以地标距离的三角不等式为下界的 A* 搜索（ALT）. 地标距离在每个图上只预计算一次，结果仍然是精确的.
+   */
+  ALT
+}
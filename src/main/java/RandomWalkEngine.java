@@ -0,0 +1,228 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.ToIntBiFunction;
+import java.util.random.RandomGenerator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * {@code RandomWalkEngine} 在 {@link CompactGraph} 上执行与 {@link TextGraphAnalyzer#randomWalk} 规则相同的随机游走.
+ *
+ * <p>游走只使用整数编号：下一步在当前单词的 CSR 行中均匀选择一条边，已走过的边记录在按边编号索引的
+ * {@link BitSet} 中。每次游走结束后只清除本次设置过的位，因此同一个 {@link Walker} 可以反复使用而无需重新分配.
+ *
+ * <p>批量游走按 {@value #BLOCK_SIZE} 条一组分配给 fork-join 线程，每组使用由种子派生的独立随机数生成器，
+ * 结果按组的顺序交给调用方，因此输出只取决于种子。各组按批次处理：一批组并行计算完成后，先依次交给调用方，
+ * 再开始下一批，因此内存中最多只有 {@link #BATCH_BLOCKS} 组游走，与游走总数无关.
+ */
+final class RandomWalkEngine {
+
+  // Walks per parallel task; each block has its own generator and walker
+  static final int BLOCK_SIZE = 1024;
+  // Blocks computed in parallel before their walks are handed to the sink
+  static final int BATCH_BLOCKS = 2 * Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+
+  private final CompactGraph graph;
+  private final ThreadLocal<Walker> walkers = ThreadLocal.withInitial(Walker::new);
+
+  RandomWalkEngine(CompactGraph graph) {
+    this.graph = graph;
+  }
+
+  /**
+   * 获取紧凑图对应的随机游走引擎.
+   *
+   * @param graph 紧凑图
+   * @return 随机游走引擎
+   */
+  static RandomWalkEngine of(CompactGraph graph) {
+    return graph.cachedAnalysis(RandomWalkEngine.class, () -> new RandomWalkEngine(graph));
+  }
+
+  /**
+   * 并行生成多条随机游走，并按生成顺序把每条游走经过的单词交给 {@code sink}. 每个节点按
+   * {@link CompactGraph#emittedAt(int, int)} 输出，因此 k 元语法图上的游走同样是真实的单词序列.
+   *
+   * @param count 游走的条数
+   * @param seed  随机数种子
+   * @param sink  接收每条游走的单词序列，只会被一个线程依次调用
+   */
+  void walks(int count, long seed, Consumer<List<String>> sink) {
+    walks(count, seed, Walker::walk, sink);
+  }
+
+  /**
+   * 并行生成多条按边权重抽样、带重启的随机游走，规则与 {@link Walker#walkWeighted} 相同.
+   *
+   * @param count              游走的条数
+   * @param restartProbability 每一步跳回起始单词的概率
+   * @param maxLength          每条游走的单词数
+   * @param seed               随机数种子
+   * @param sink               接收每条游走的单词序列，只会被一个线程依次调用
+   */
+  void weightedWalks(int count, double restartProbability, int maxLength, long seed,
+      Consumer<List<String>> sink) {
+    AliasTable table = AliasTable.of(graph);
+    walks(count, seed,
+        (walker, random) -> walker.walkWeighted(random, table, restartProbability, maxLength),
+        sink);
+  }
+
+  private void walks(int count, long seed, ToIntBiFunction<Walker, RandomGenerator> walk,
+      Consumer<List<String>> sink) {
+    if (graph.size() == 0 || count <= 0) {
+      return;
+    }
+    int blocks = (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    long[] seeds = new SplittableRandom(seed).longs(blocks).toArray();
+    for (int first = 0; first < blocks; first += BATCH_BLOCKS) {
+      int end = Math.min(blocks, first + BATCH_BLOCKS);
+      List<List<List<String>>> batch = IntStream.range(first, end).parallel()
+          .mapToObj(block -> {
+            int walkCount = Math.min(BLOCK_SIZE, count - block * BLOCK_SIZE);
+            return walkBlock(walkCount, new SplittableRandom(seeds[block]), walk);
+          })
+          .collect(Collectors.toList());
+      // Drain the batch before computing the next, which bounds the walks held in memory
+      for (List<List<String>> block : batch) {
+        block.forEach(sink);
+      }
+    }
+  }
+
+  /**
+   * 获取当前线程可重复使用的游走状态.
+   *
+   * @return 当前线程的游走状态
+   */
+  Walker walker() {
+    return walkers.get();
+  }
+
+  private List<List<String>> walkBlock(int walkCount, RandomGenerator random,
+      ToIntBiFunction<Walker, RandomGenerator> walk) {
+    Walker walker = walker();
+    List<List<String>> result = new ArrayList<>(walkCount);
+    for (int i = 0; i < walkCount; i++) {
+      int length = walk.applyAsInt(walker, random);
+      List<String> words = new ArrayList<>(length);
+      for (int j = 0; j < length; j++) {
+        words.add(graph.emittedAt(j > 0 ? walker.path(j - 1) : -1, walker.path(j)));
+      }
+      result.add(words);
+    }
+    return result;
+  }
+
+  /**
+   * 可重复使用的单线程游走状态.
+   */
+  final class Walker {
+
+    private final BitSet visited = new BitSet(graph.edgeCount());
+    private int[] path = new int[16];
+    private int[] edges = new int[16];
+    private boolean repeated;
+
+    /**
+     * 从随机单词开始游走，直到没有出边或即将重复走过一条边. 重复的那条边的终点也会包含在路径中.
+     *
+     * @param random 随机数生成器
+     * @return 路径中的单词数，单词编号保存在 {@link #path(int)} 中
+     */
+    int walk(RandomGenerator random) {
+      int current = random.nextInt(graph.size());
+      int length = 0;
+      int edgeCount = 0;
+      path[length++] = current;
+      repeated = false;
+
+      while (graph.edgeEnd(current) > graph.edgeStart(current)) {
+        int start = graph.edgeStart(current);
+        int edge = start + random.nextInt(graph.edgeEnd(current) - start);
+        current = graph.target(edge);
+        if (length == path.length) {
+          path = Arrays.copyOf(path, length * 2);
+        }
+        path[length++] = current;
+        if (visited.get(edge)) {
+          repeated = true;
+          break;
+        }
+        visited.set(edge);
+        if (edgeCount == edges.length) {
+          edges = Arrays.copyOf(edges, edgeCount * 2);
+        }
+        edges[edgeCount++] = edge;
+      }
+
+      // Clear only the bits of this walk so the bitset can be reused
+      for (int i = 0; i < edgeCount; i++) {
+        visited.clear(edges[i]);
+      }
+      return length;
+    }
+
+    /**
+     * 从随机单词开始按边权重比例游走，直到路径达到 {@code maxLength} 个单词. 不在起始单词时，每一步以
+     * {@code restartProbability} 的概率跳回起始单词（跳转也记入路径）；走到没有出边的单词时同样跳回，
+     * 起始单词本身没有出边时提前结束.
+     *
+     * @param random             随机数生成器
+     * @param table              图的别名表
+     * @param restartProbability 每一步跳回起始单词的概率
+     * @param maxLength          路径的最大单词数
+     * @return 路径中的单词数，单词编号保存在 {@link #path(int)} 中
+     */
+    int walkWeighted(RandomGenerator random, AliasTable table, double restartProbability,
+        int maxLength) {
+      int start = random.nextInt(graph.size());
+      int current = start;
+      int length = 0;
+      path[length++] = current;
+      repeated = false;
+
+      while (length < maxLength) {
+        boolean deadEnd = graph.edgeEnd(current) == graph.edgeStart(current);
+        if (deadEnd && current == start) {
+          break;
+        }
+        if (deadEnd || (current != start && random.nextDouble() < restartProbability)) {
+          current = start;
+        } else {
+          current = graph.target(table.sample(current, random));
+        }
+        if (length == path.length) {
+          // Grow on demand rather than reserving maxLength words for every walk
+          path = Arrays.copyOf(path, Math.min(length * 2, maxLength));
+        }
+        path[length++] = current;
+      }
+      return length;
+    }
+
+    /**
+     * 获取上一次游走中第 {@code index} 个单词的编号.
+     *
+     * @param index 路径中的位置
+     * @return 单词编号
+     */
+    int path(int index) {
+      return path[index];
+    }
+
+    /**
+     * 上一次游走是否因为即将重复走过一条边而结束.
+     *
+     * @return 因重复边结束时返回 true
+     */
+    boolean endedOnRepeatedEdge() {
+      return repeated;
+    }
+  }
+}
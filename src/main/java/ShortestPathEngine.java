@@ -0,0 +1,462 @@
+import java.util.Arrays;
+
+/**
+ * {@code ShortestPathEngine} 在 {@link CompactGraph} 上执行基于整数编号的 Dijkstra 最短路径搜索.
+ *
+ * <p>优先队列是以单词编号为元素、支持 decrease-key 的索引二叉堆，每次松弛的代价为 O(log n)。
+ * 距离、前驱等数组按线程复用，并用“代数”标记惰性初始化：一次查询只会触及它实际访问到的节点，
+ * 而不是在开始时初始化全部单词.
+ *
+ * <p>除单向搜索外，引擎还支持双向 Dijkstra 和基于地标下界的 A* 搜索（ALT），见 {@link PathSearchMode}.
+ *
+ * <p>每个紧凑图只需要一个引擎实例，可以通过 {@link #of(CompactGraph)} 获取缓存的实例.
+ */
+final class ShortestPathEngine {
+
+  static final long UNREACHABLE = Long.MAX_VALUE;
+
+  private final CompactGraph graph;
+  private final ThreadLocal<Search> searches;
+  private final ThreadLocal<Search> backwardSearches;
+
+  private ShortestPathEngine(CompactGraph graph) {
+    this.graph = graph;
+    this.searches = ThreadLocal.withInitial(() -> new Search(graph.size()));
+    this.backwardSearches = ThreadLocal.withInitial(() -> new Search(graph.size()));
+  }
+
+  /**
+   * 获取紧凑图对应的引擎，同一个图总是返回同一个实例.
+   *
+   * @param graph 紧凑图
+   * @return 最短路径引擎
+   */
+  static ShortestPathEngine of(CompactGraph graph) {
+    return graph.cachedAnalysis(ShortestPathEngine.class, () -> new ShortestPathEngine(graph));
+  }
+
+  /**
+   * 计算从 {@code source} 到 {@code target} 的最短路径.
+   *
+   * @param source 起点编号
+   * @param target 终点编号
+   * @return 最短路径，不可达时返回 null
+   */
+  Path shortestPath(int source, int target) {
+    Search search = searches.get();
+    search.run(graph, source, target);
+    return search.pathTo(target);
+  }
+
+  /**
+   * 用双向 Dijkstra 计算从 {@code source} 到 {@code target} 的最短路径. 前向搜索沿出边从起点扩展，
+   * 后向搜索沿入边从终点扩展，每次扩展队列较小的一侧；当两侧队首距离之和不小于已知的最短相遇路径时停止.
+   *
+   * @param source 起点编号
+   * @param target 终点编号
+   * @return 最短路径，不可达时返回 null
+   */
+  Path bidirectionalPath(int source, int target) {
+    Search forward = searches.get();
+    Search backward = backwardSearches.get();
+    forward.start(source);
+    backward.start(target);
+
+    long best = source == target ? 0 : UNREACHABLE;
+    int meet = source == target ? source : -1;
+    while (!forward.isEmpty() && !backward.isEmpty()) {
+      if (forward.minDistance() + backward.minDistance() >= best) {
+        break;
+      }
+
+      boolean forwardStep = forward.queueSize() <= backward.queueSize();
+      Search side = forwardStep ? forward : backward;
+      Search other = forwardStep ? backward : forward;
+      int current = side.poll();
+      long currentDistance = side.distance(current);
+
+      int end = forwardStep ? graph.edgeEnd(current) : graph.inEdgeEnd(current);
+      for (int e = forwardStep ? graph.edgeStart(current) : graph.inEdgeStart(current);
+          e < end; e++) {
+        int neighbor = forwardStep ? graph.target(e) : graph.source(e);
+        int weight = forwardStep ? graph.weight(e) : graph.inWeight(e);
+        side.relax(current, neighbor, currentDistance + weight);
+
+        // A node reached from both sides closes a candidate path
+        long otherDistance = other.distance(neighbor);
+        if (otherDistance != UNREACHABLE && side.distance(neighbor) + otherDistance < best) {
+          best = side.distance(neighbor) + otherDistance;
+          meet = neighbor;
+        }
+      }
+    }
+
+    if (meet < 0) {
+      return null;
+    }
+
+    // Forward chain from the source to the meeting node, then backward chain to the target
+    int count = 0;
+    for (int id = meet; id != -1; id = forward.previous(id)) {
+      count++;
+    }
+    int forwardCount = count;
+    for (int id = backward.previous(meet); id != -1; id = backward.previous(id)) {
+      count++;
+    }
+    int[] nodes = new int[count];
+    int i = forwardCount;
+    for (int id = meet; id != -1; id = forward.previous(id)) {
+      nodes[--i] = id;
+    }
+    i = forwardCount;
+    for (int id = backward.previous(meet); id != -1; id = backward.previous(id)) {
+      nodes[i++] = id;
+    }
+    return new Path(nodes, forward.distance(meet) + backward.distance(meet));
+  }
+
+  /**
+   * 用 ALT（A*、地标、三角不等式）计算从 {@code source} 到 {@code target} 的最短路径. 地标距离在每个图上只预计算一次，
+   * 结果与 Dijkstra 一样是精确的，但通常需要确定的节点少得多.
+   *
+   * @param source 起点编号
+   * @param target 终点编号
+   * @return 最短路径，不可达时返回 null
+   */
+  Path landmarkPath(int source, int target) {
+    LandmarkIndex landmarks = LandmarkIndex.of(graph);
+    Search search = searches.get();
+    search.runGuided(graph, source, target, landmarks);
+    return search.pathTo(target);
+  }
+
+  /**
+   * 获取当前线程上一次单向搜索（Dijkstra、A* 或最短路径树）确定的节点数.
+   *
+   * @return 出队的节点数
+   */
+  int lastSettledCount() {
+    return searches.get().settledCount();
+  }
+
+  /**
+   * 运行一次 Dijkstra，计算从 {@code source} 到所有可达单词的最短路径树.
+   *
+   * @param source 起点编号
+   * @return 最短路径树
+   */
+  ShortestPathTree treeFrom(int source) {
+    Search search = searches.get();
+    search.run(graph, source, -1);
+
+    int n = graph.size();
+    long[] distance = new long[n];
+    int[] previous = new int[n];
+    for (int id = 0; id < n; id++) {
+      distance[id] = search.distance(id);
+      previous[id] = search.previous(id);
+    }
+    return new ShortestPathTree(graph, source, distance, previous);
+  }
+
+  /**
+   * 运行一次 Dijkstra，把从 {@code source} 出发的最短路径树中每个单词的前驱写入 {@code previous}.
+   *
+   * @param source   起点编号
+   * @param previous 长度为单词数的数组，起点和不可达单词写入 -1
+   */
+  void predecessorsFrom(int source, int[] previous) {
+    Search search = searches.get();
+    search.run(graph, source, -1);
+    for (int id = 0; id < previous.length; id++) {
+      previous[id] = search.previous(id);
+    }
+  }
+
+  /**
+   * 一条最短路径：依次经过的单词编号以及路径长度.
+   */
+  static final class Path {
+
+    final int[] nodes;
+    final long length;
+
+    Path(int[] nodes, long length) {
+      this.nodes = nodes;
+      this.length = length;
+    }
+  }
+
+  /**
+   * 单线程使用的 Dijkstra 工作区.
+   */
+  static final class Search {
+
+    private final long[] distance;
+    private final long[] priority;
+    private final int[] previous;
+    private final int[] stamp;
+    private final IndexedMinHeap heap;
+    private int generation;
+    private int settled;
+
+    Search(int n) {
+      distance = new long[n];
+      priority = new long[n];
+      previous = new int[n];
+      stamp = new int[n];
+      heap = new IndexedMinHeap(n, priority);
+    }
+
+    // Start a new query; entries from earlier queries become stale without being cleared
+    void reset() {
+      generation++;
+      if (generation == 0) {
+        Arrays.fill(stamp, 0);
+        generation = 1;
+      }
+      heap.clear();
+      settled = 0;
+    }
+
+    private void touch(int id) {
+      if (stamp[id] != generation) {
+        stamp[id] = generation;
+        distance[id] = UNREACHABLE;
+        previous[id] = -1;
+        heap.forget(id);
+      }
+    }
+
+    long distance(int id) {
+      return stamp[id] == generation ? distance[id] : UNREACHABLE;
+    }
+
+    int previous(int id) {
+      return stamp[id] == generation ? previous[id] : -1;
+    }
+
+    // Begin a new search with only the source in the queue
+    void start(int source) {
+      reset();
+      touch(source);
+      distance[source] = 0;
+      priority[source] = 0;
+      heap.push(source);
+    }
+
+    // Number of nodes taken off the queue since the search started
+    int settledCount() {
+      return settled;
+    }
+
+    boolean isEmpty() {
+      return heap.isEmpty();
+    }
+
+    int queueSize() {
+      return heap.size();
+    }
+
+    long minDistance() {
+      return distance[heap.peek()];
+    }
+
+    int poll() {
+      settled++;
+      return heap.pop();
+    }
+
+    // Offer a path to neighbor through current with the given total distance
+    void relax(int current, int neighbor, long newDistance) {
+      touch(neighbor);
+      if (newDistance < distance[neighbor]) {
+        distance[neighbor] = newDistance;
+        priority[neighbor] = newDistance;
+        previous[neighbor] = current;
+        heap.pushOrDecrease(neighbor);
+      }
+    }
+
+    /**
+     * 从 {@code source} 开始搜索，直到 {@code target} 出队；{@code target} 为 -1 时搜索全部可达节点.
+     */
+    void run(CompactGraph graph, int source, int target) {
+      start(source);
+      while (!heap.isEmpty()) {
+        int current = poll();
+        if (current == target) {
+          break;
+        }
+
+        long currentDistance = distance[current];
+        for (int e = graph.edgeStart(current); e < graph.edgeEnd(current); e++) {
+          relax(current, graph.target(e), currentDistance + graph.weight(e));
+        }
+      }
+    }
+
+    /**
+     * 从 {@code source} 开始沿入边搜索全部能到达 {@code source} 的节点，得到每个节点到 {@code source} 的距离.
+     */
+    void runBackward(CompactGraph graph, int source) {
+      start(source);
+      while (!heap.isEmpty()) {
+        int current = poll();
+        long currentDistance = distance[current];
+        for (int e = graph.inEdgeStart(current); e < graph.inEdgeEnd(current); e++) {
+          relax(current, graph.source(e), currentDistance + graph.inWeight(e));
+        }
+      }
+    }
+
+    /**
+     * A* 搜索：队列按“已走距离 + 到终点距离的下界”排序，直到 {@code target} 出队.
+     * 下界来自地标的三角不等式，是一致的，因此出队时的距离就是最短距离.
+     */
+    void runGuided(CompactGraph graph, int source, int target, LandmarkIndex landmarks) {
+      start(source);
+      priority[source] = landmarks.lowerBound(source, target);
+      while (!heap.isEmpty()) {
+        int current = poll();
+        if (current == target) {
+          break;
+        }
+
+        long currentDistance = distance[current];
+        for (int e = graph.edgeStart(current); e < graph.edgeEnd(current); e++) {
+          int neighbor = graph.target(e);
+          long newDistance = currentDistance + graph.weight(e);
+          touch(neighbor);
+          if (newDistance < distance[neighbor]) {
+            distance[neighbor] = newDistance;
+            priority[neighbor] = newDistance + landmarks.lowerBound(neighbor, target);
+            previous[neighbor] = current;
+            heap.pushOrDecrease(neighbor);
+          }
+        }
+      }
+    }
+
+    Path pathTo(int target) {
+      long length = distance(target);
+      if (length == UNREACHABLE) {
+        return null;
+      }
+      int count = 0;
+      for (int id = target; id != -1; id = previous(id)) {
+        count++;
+      }
+      int[] nodes = new int[count];
+      for (int id = target; id != -1; id = previous(id)) {
+        nodes[--count] = id;
+      }
+      return new Path(nodes, length);
+    }
+  }
+
+  /**
+   * 以 {@code long[]} 中的优先级为键、以节点编号为元素的索引二叉最小堆，支持 O(log n) 的 decrease-key.
+   */
+  static final class IndexedMinHeap {
+
+    private static final int ABSENT = -1;
+
+    private final int[] heap;
+    private final int[] position;
+    private final long[] keys;
+    private int size;
+
+    IndexedMinHeap(int capacity, long[] keys) {
+      this.heap = new int[capacity];
+      this.position = new int[capacity];
+      this.keys = keys;
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    int size() {
+      return size;
+    }
+
+    int peek() {
+      return heap[0];
+    }
+
+    void clear() {
+      size = 0;
+    }
+
+    // Mark a node as not in the heap; used when its workspace entry is lazily initialized
+    void forget(int id) {
+      position[id] = ABSENT;
+    }
+
+    void push(int id) {
+      heap[size] = id;
+      position[id] = size;
+      siftUp(size++);
+    }
+
+    void pushOrDecrease(int id) {
+      if (position[id] == ABSENT) {
+        push(id);
+      } else {
+        siftUp(position[id]);
+      }
+    }
+
+    int pop() {
+      int top = heap[0];
+      position[top] = ABSENT;
+      size--;
+      if (size > 0) {
+        heap[0] = heap[size];
+        position[heap[0]] = 0;
+        siftDown(0);
+      }
+      return top;
+    }
+
+    private void siftUp(int i) {
+      int id = heap[i];
+      long key = keys[id];
+      while (i > 0) {
+        int parent = (i - 1) >>> 1;
+        if (keys[heap[parent]] <= key) {
+          break;
+        }
+        heap[i] = heap[parent];
+        position[heap[i]] = i;
+        i = parent;
+      }
+      heap[i] = id;
+      position[id] = i;
+    }
+
+    private void siftDown(int i) {
+      int id = heap[i];
+      long key = keys[id];
+      while (true) {
+        int child = 2 * i + 1;
+        if (child >= size) {
+          break;
+        }
+        if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+          child++;
+        }
+        if (keys[heap[child]] >= key) {
+          break;
+        }
+        heap[i] = heap[child];
+        position[heap[i]] = i;
+        i = child;
+      }
+      heap[i] = id;
+      position[id] = i;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@code ShortestPathTree} 是从一个起始单词出发、运行一次 Dijkstra 得到的最短路径树.
+ *
+ * <p>树中保存到每个单词的最短距离和前驱单词的编号，到具体目标的路径只在查询时才沿前驱链构造.
+ */
+public final class ShortestPathTree {
+
+  private final CompactGraph graph;
+  private final int source;
+  private final long[] distance;
+  private final int[] previous;
+
+  ShortestPathTree(CompactGraph graph, int source, long[] distance, int[] previous) {
+    this.graph = graph;
+    this.source = source;
+    this.distance = distance;
+    this.previous = previous;
+  }
+
+  /**
+   * 获取起始单词.
+   *
+   * @return 起始单词
+   */
+  public String source() {
+    return graph.wordAt(source);
+  }
+
+  /**
+   * 获取从起始单词到目标单词的最短距离.
+   *
+   * @param target 目标单词（不区分大小写）
+   * @return 最短距离，目标不存在或不可达时返回 -1
+   */
+  public long distanceTo(String target) {
+    int id = graph.indexOf(target.toLowerCase());
+    if (id < 0 || distance[id] == ShortestPathEngine.UNREACHABLE) {
+      return -1;
+    }
+    return distance[id];
+  }
+
+  /**
+   * 获取从起始单词到目标单词的最短路径.
+   *
+   * @param target 目标单词（不区分大小写）
+   * @return 依次经过的单词，目标不存在或不可达时返回空列表
+   */
+  public List<String> pathTo(String target) {
+    int id = graph.indexOf(target.toLowerCase());
+    if (id < 0 || distance[id] == ShortestPathEngine.UNREACHABLE) {
+      return Collections.emptyList();
+    }
+    List<String> path = new ArrayList<>();
+    for (int current = id; current != -1; current = previous[current]) {
+      path.add(graph.wordAt(current));
+    }
+    Collections.reverse(path);
+    return path;
+  }
+
+  /**
+   * 生成与 {@link TextGraphAnalyzer#calcShortestPath} 格式相同的路径描述.
+   *
+   * @param target 目标单词（不区分大小写）
+   * @return 描述最短路径的字符串，包括路径和距离
+   */
+  public String describePathTo(String target) {
+    String word1 = source();
+    String word2 = target.toLowerCase();
+    if (graph.indexOf(word2) < 0) {
+      return "No " + word2 + " in the graph!";
+    }
+    List<String> path = pathTo(word2);
+    if (path.isEmpty()) {
+      return "No path exists from " + word1 + " to " + word2 + "!";
+    }
+    return "Path from " + word1 + " to " + word2 + ": "
+        + String.join(" → ", path) + "\nLength: " + distanceTo(word2);
+  }
+}
@@ -3,23 +3,37 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.security.SecureRandom;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * {@code TextGraphAnalyzer} 是一个文本图分析器. 提供将文本文件转换为有向图的功能，并基于该图实现桥接词查询、文本生成、最短路径计算、PageRank
@@ -34,74 +48,255 @@ import java.util.regex.Pattern;
  */
 public class TextGraphAnalyzer {
 
-  private static final SecureRandom secureRandom = new SecureRandom();
+  // Root of the per-thread default generators; split() is not thread-safe, so guard it
+  private static final SplittableRandom RANDOM_ROOT = new SplittableRandom();
+  private static final ThreadLocal<RandomGenerator> DEFAULT_RANDOM =
+      ThreadLocal.withInitial(TextGraphAnalyzer::splitRandomRoot);
 
-  // Create graph from file - now returns a DirectedGraph
+  private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+  static final String SNAPSHOT_SUFFIX = ".graph";
+
+  // System property that overrides the directory of cached graph snapshots
+  static final String SNAPSHOT_CACHE_PROPERTY = "textgraph.cacheDir";
+
+  static final Pattern WORD_PATTERN = Pattern.compile("[a-zA-Z]+");
+
+  static final double PAGE_RANK_DAMPING = 0.85;
+  static final double PAGE_RANK_TOLERANCE = 1e-10;
+  static final int PAGE_RANK_MAX_ITERATIONS = 500;
 
   /**
    * 从文本文件创建有向图。将文本内容解析为单词，并基于单词的相邻关系构建图.
    *
+   * <p>文件通过 {@link FileChannel} 流式读取，只扫描一遍，内存占用与文件大小无关。
+   *
    * @param filePath 文本文件的路径
    * @return 表示文本中单词关系的有向图
    * @throws IOException 如果无法读取或处理文件时抛出异常
    */
   public static DirectedGraph createGraphFromFile(String filePath) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+      return createGraphFromChannel(channel);
+    }
+  }
 
-    String content = Files.readString(Paths.get(filePath));
+  /**
+   * 从字节通道流式创建有向图. 单词为连续的 ASCII 字母（统一转为小写），其余字符均为分隔符；
+   * 每读到一个单词就与上一个单词连成一条边，不会缓存全文或单词列表.
+   *
+   * @param channel 要读取的字节通道，读取到末尾为止，调用方负责关闭
+   * @return 表示文本中单词关系的有向图
+   * @throws IOException 如果读取通道失败
+   */
+  public static DirectedGraph createGraphFromChannel(ReadableByteChannel channel)
+      throws IOException {
+    DirectedGraph graph = new DirectedGraph();
+    readWords(channel, new WordTokenizer.BigramSink(graph));
+    return graph;
+  }
 
-    // Replace line breaks and punctuation with spaces
-    content = content.replaceAll("[\\r\\n]", " ");
-    content = content.replaceAll("[\\p{Punct}]", " ");
+  /**
+   * 并行地从多个文本文件创建一个共享的线程安全图. 每个文件由一个线程独立分词，并直接把边计数加到同一个
+   * {@link ConcurrentWordGraph} 中；不同文件之间不会连边，结果等于各文件单独建图后边权重相加.
+   *
+   * @param filePaths 文本文件的路径
+   * @return 线程安全的有向图，之后仍可以继续从多个线程添加边
+   * @throws IOException 如果无法读取任一文件
+   */
+  public static ConcurrentWordGraph createGraphFromFiles(List<String> filePaths)
+      throws IOException {
+    ConcurrentWordGraph graph = new ConcurrentWordGraph();
+    try {
+      filePaths.parallelStream().forEach(filePath -> {
+        String[] previous = new String[1];
+        try (FileChannel channel =
+            FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+          readWords(channel, word -> {
+            if (previous[0] != null) {
+              graph.addEdgeNormalized(previous[0], word, 1);
+            }
+            previous[0] = word;
+          });
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return graph;
+  }
 
-    // Extract words (only letters A-Z and a-z)
-    Pattern pattern = Pattern.compile("[a-zA-Z]+");
-    Matcher matcher = pattern.matcher(content);
+  /**
+   * 从一个会不断追加内容的文本文件增量地创建有向图. 返回的加载器已经读入了文件的现有内容，之后每次调用
+   * {@link IncrementalGraphLoader#refresh()} 只解析新追加的字节，并把新的边计数加到同一个图中.
+   *
+   * @param filePath 文本文件的路径
+   * @return 增量加载器，通过 {@link IncrementalGraphLoader#graph()} 获取图
+   * @throws IOException 如果无法读取文件
+   */
+  public static IncrementalGraphLoader createGraphFromFileIncremental(String filePath)
+      throws IOException {
+    IncrementalGraphLoader loader = new IncrementalGraphLoader(Paths.get(filePath));
+    loader.refresh();
+    return loader;
+  }
 
-    List<String> words = new ArrayList<>();
-    while (matcher.find()) {
-      words.add(matcher.group());
-    }
+  /**
+   * 从文本文件加载图，并复用之前缓存的二进制快照. 快照保存在用户的缓存目录中（默认为
+   * {@code ~/.cache/text-graph-analyzer}，可以通过系统属性 {@value #SNAPSHOT_CACHE_PROPERTY} 指定），
+   * 不会写入文本文件所在的目录.
+   *
+   * @param filePath 文本文件的路径
+   * @return 不可变的紧凑图，与 {@code createGraphFromFile(filePath).freeze()} 相同
+   * @throws IOException 如果无法读取文本文件
+   */
+  public static CompactGraph loadGraph(String filePath) throws IOException {
+    String configured = System.getProperty(SNAPSHOT_CACHE_PROPERTY);
+    Path cacheDirectory = configured != null ? Paths.get(configured)
+        : Paths.get(System.getProperty("user.home"), ".cache", "text-graph-analyzer");
+    return loadGraph(filePath, cacheDirectory);
+  }
 
-    DirectedGraph graph = new DirectedGraph();
-    // Build the graph from adjacent words
-    for (int i = 0; i < words.size() - 1; i++) {
-      graph.addEdge(words.get(i), words.get(i + 1));
+  /**
+   * 从文本文件加载图，并复用缓存目录中之前保存的二进制快照. 快照记录了文本文件的大小和修改时间；
+   * 两者都未变化时直接通过内存映射加载快照，跳过分词和建图，否则重新建图并更新快照。快照损坏时同样重新建图，
+   * 缓存目录无法创建或写入时只输出警告。源文件信息在建图之前读取，建图完成后再检查一次；
+   * 建图期间源文件被修改时不写入快照，以免把由旧内容建成的图标记为最新.
+   *
+   * @param filePath       文本文件的路径
+   * @param cacheDirectory 保存快照的目录，不存在时会被创建
+   * @return 不可变的紧凑图，与 {@code createGraphFromFile(filePath).freeze()} 相同
+   * @throws IOException 如果无法读取文本文件
+   */
+  public static CompactGraph loadGraph(String filePath, Path cacheDirectory) throws IOException {
+    Path source = Paths.get(filePath);
+    Path snapshot = snapshotFileFor(source, cacheDirectory);
+    GraphSnapshot.SourceStamp stamp = GraphSnapshot.SourceStamp.of(source);
+    if (GraphSnapshot.isFresh(snapshot, stamp)) {
+      try {
+        return GraphSnapshot.load(snapshot);
+      } catch (IOException e) {
+        System.err.println("Ignoring unreadable graph snapshot: " + e.getMessage());
+      }
     }
 
+    CompactGraph graph = createGraphFromFile(filePath).freeze();
+    try {
+      if (!stamp.equals(GraphSnapshot.SourceStamp.of(source))) {
+        System.err.println("Not saving graph snapshot: " + filePath + " changed while loading");
+        return graph;
+      }
+      Files.createDirectories(cacheDirectory);
+      GraphSnapshot.save(graph, snapshot, stamp);
+    } catch (IOException e) {
+      System.err.println("Failed to save graph snapshot: " + e.getMessage());
+    }
     return graph;
   }
 
+  // Name the snapshot after the file and a hash of its absolute path, so equal names do not clash
+  static Path snapshotFileFor(Path source, Path cacheDirectory) {
+    Path absolute = source.toAbsolutePath().normalize();
+    UUID id = UUID.nameUUIDFromBytes(absolute.toString().getBytes(StandardCharsets.UTF_8));
+    return cacheDirectory.resolve(absolute.getFileName() + "-" + id + SNAPSHOT_SUFFIX);
+  }
+
+  /**
+   * 把图保存为二进制快照文件.
+   *
+   * @param graph      文本的有向图表示
+   * @param outputPath 快照文件的路径，已存在时会被替换
+   * @throws IOException 如果写入文件失败
+   */
+  public static void saveGraphSnapshot(WordGraph graph, String outputPath) throws IOException {
+    GraphSnapshot.save(compactOf(graph), Paths.get(outputPath), null);
+  }
+
+  /**
+   * 加载之前由 {@link #saveGraphSnapshot(WordGraph, String)} 保存的快照文件.
+   *
+   * @param snapshotPath 快照文件的路径
+   * @return 不可变的紧凑图
+   * @throws IOException 如果文件无法读取、格式不正确或校验和不一致
+   */
+  public static CompactGraph loadGraphSnapshot(String snapshotPath) throws IOException {
+    return GraphSnapshot.load(Paths.get(snapshotPath));
+  }
+
+  /**
+   * 从文本文件创建 k 元语法图，节点是连续的 k−1 个单词. 分词规则与 {@link #createGraphFromFile(String)} 相同，
+   * k = 2 时得到的图与其完全一致.
+   *
+   * @param filePath 文本文件的路径
+   * @param order    元数 k，至少为 2
+   * @return k 元语法图
+   * @throws IOException              如果无法读取文件
+   * @throws IllegalArgumentException 如果 k 小于 2
+   */
+  public static KGramGraph createKGramGraphFromFile(String filePath, int order)
+      throws IOException {
+    KGramGraph.Builder builder = new KGramGraph.Builder(order);
+    try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+      readWords(channel, builder);
+    }
+    return builder.build();
+  }
+
+  // Stream every word of the channel into the sink
+  private static void readWords(ReadableByteChannel channel, WordTokenizer.WordSink sink)
+      throws IOException {
+    WordTokenizer tokenizer = new WordTokenizer(sink);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(STREAM_BUFFER_SIZE);
+    while (channel.read(buffer) != -1) {
+      buffer.flip();
+      tokenizer.feed(buffer);
+      buffer.clear();
+    }
+    tokenizer.finish();
+  }
+
+  /**
+   * 并行地从文本文件创建有向图. 文件被内存映射并按单词边界切分成若干块，每块在 fork-join 线程池上独立统计边的次数，
+   * 最后合并成一个图，并补上跨越块边界的相邻单词对。结果与 {@link #createGraphFromFile(String)} 完全相同.
+   *
+   * @param filePath 文本文件的路径
+   * @return 表示文本中单词关系的有向图
+   * @throws IOException 如果无法读取或处理文件时抛出异常
+   */
+  public static DirectedGraph createGraphFromFileParallel(String filePath) throws IOException {
+    return ParallelGraphBuilder.build(Paths.get(filePath), ForkJoinPool.commonPool(),
+        ParallelGraphBuilder.DEFAULT_CHUNK_SIZE);
+  }
+
   // Query bridge words - now takes graph as parameter
 
   /**
    * 查询两个单词之间的桥接词. 桥接词是指在原文中既出现在第一个单词之后，又出现在第二个单词之前的单词。
    *
+   * <p>对冻结后的 {@link CompactGraph}，查询通过有序的出边行与入边行求交完成，不需要逐个探测高频单词的全部后继.
+   *
    * @param graph 文本的有向图表示
    * @param word1 第一个单词
    * @param word2 第二个单词
    * @return 描述两个单词之间桥接词的字符串
    */
-  public static String queryBridgeWords(DirectedGraph graph, String word1, String word2) {
+  public static String queryBridgeWords(WordGraph graph, String word1, String word2) {
     word1 = word1.toLowerCase();
     word2 = word2.toLowerCase();
 
     // Check if both words exist in the graph
-    if (!graph.containsWord(word1) || !graph.containsWord(word2)) {
-      return "No " + (!graph.containsWord(word1) ? word1 : "")
-          + ((!graph.containsWord(word1) && !graph.containsWord(word2)) ? " or " : "")
-          + (!graph.containsWord(word2) ? word2 : "") + " in the graph!";
+    boolean hasWord1 = graph.containsWordNormalized(word1);
+    boolean hasWord2 = graph.containsWordNormalized(word2);
+    if (!hasWord1 || !hasWord2) {
+      return "No " + (!hasWord1 ? word1 : "")
+          + ((!hasWord1 && !hasWord2) ? " or " : "")
+          + (!hasWord2 ? word2 : "") + " in the graph!";
     }
 
     // Find bridge words
-    List<String> bridgeWords = new ArrayList<>();
-
-    // For each neighbor of word1
-    for (String bridgeCandidate : graph.getNeighbors(word1).keySet()) {
-      // Check if this neighbor connects to word2
-      if (graph.getNeighbors(bridgeCandidate).containsKey(word2)) {
-        bridgeWords.add(bridgeCandidate);
-      }
-    }
+    List<String> bridgeWords = bridgeWordsBetween(graph, word1, word2);
 
     // Format and return the result
     if (bridgeWords.isEmpty()) {
@@ -121,39 +316,69 @@ public class TextGraphAnalyzer {
   }
 
   // Find bridge words for generation - returns list
-  private static List<String> findBridgeWords(DirectedGraph graph, String word1, String word2) {
+  private static List<String> findBridgeWords(WordGraph graph, String word1, String word2) {
     word1 = word1.toLowerCase();
     word2 = word2.toLowerCase();
 
-    List<String> bridgeWords = new ArrayList<>();
-
     // Check if both words exist in the graph
-    if (!graph.containsWord(word1) || !graph.containsWord(word2)) {
-      return bridgeWords; // Empty list if either word doesn't exist
+    if (!graph.containsWordNormalized(word1) || !graph.containsWordNormalized(word2)) {
+      return new ArrayList<>(); // Empty list if either word doesn't exist
     }
 
-    // For each neighbor of word1
-    for (String bridgeCandidate : graph.getNeighbors(word1).keySet()) {
-      // Check if this neighbor connects to word2
-      if (graph.getNeighbors(bridgeCandidate).containsKey(word2)) {
-        bridgeWords.add(bridgeCandidate);
+    return bridgeWordsBetween(graph, word1, word2);
+  }
+
+  // Bridge words between two lowercase words that are both in the graph. A frozen CompactGraph
+  // intersects its sorted out- and in-edge rows; other graphs probe every successor of word1.
+  // Sorted alphabetically, so the answer does not depend on the graph representation
+  private static List<String> bridgeWordsBetween(WordGraph graph, String word1, String word2) {
+    List<String> bridgeWords = new ArrayList<>();
+
+    if (graph instanceof CompactGraph) {
+      CompactGraph compact = (CompactGraph) graph;
+      for (int id : compact.bridgeWords(compact.indexOf(word1), compact.indexOf(word2))) {
+        bridgeWords.add(compact.wordAt(id));
+      }
+    } else {
+      // For each neighbor of word1
+      for (String bridgeCandidate : graph.getNeighborsNormalized(word1).keySet()) {
+        // Check if this neighbor connects to word2
+        if (graph.getNeighborsNormalized(bridgeCandidate).containsKey(word2)) {
+          bridgeWords.add(bridgeCandidate);
+        }
       }
     }
 
+    Collections.sort(bridgeWords);
     return bridgeWords;
   }
 
   /**
    * 使用桥接词生成新文本。在输入文本的相邻单词之间插入随机选择的桥接词.
    *
+   * <p>桥接词由当前线程自己的 {@link SplittableRandom} 选择，多个线程同时调用时不存在竞争.
+   *
    * @param graph     文本的有向图表示
    * @param inputText 要处理的输入文本
    * @return 插入了桥接词的新文本
    */
-  public static String generateNewText(DirectedGraph graph, String inputText) {
+  public static String generateNewText(WordGraph graph, String inputText) {
+    return generateNewText(graph, inputText, DEFAULT_RANDOM.get());
+  }
+
+  /**
+   * 使用桥接词生成新文本，由指定的随机数生成器选择桥接词. 传入固定种子的生成器（例如
+   * {@code new SplittableRandom(seed)}）可以得到可重复的结果.
+   *
+   * @param graph     文本的有向图表示
+   * @param inputText 要处理的输入文本
+   * @param random    随机数生成器，不能被其他线程同时使用
+   * @return 插入了桥接词的新文本
+   */
+  public static String generateNewText(WordGraph graph, String inputText,
+      RandomGenerator random) {
     // Extract words from input text
-    Pattern pattern = Pattern.compile("[a-zA-Z]+");
-    Matcher matcher = pattern.matcher(inputText);
+    Matcher matcher = WORD_PATTERN.matcher(inputText);
     List<String> words = new ArrayList<>();
 
     while (matcher.find()) {
@@ -177,7 +402,7 @@ public class TextGraphAnalyzer {
 
       // If bridge words exist, add a random one
       if (!bridgeWords.isEmpty()) {
-        String bridgeWord = bridgeWords.get(secureRandom.nextInt(bridgeWords.size()));
+        String bridgeWord = bridgeWords.get(random.nextInt(bridgeWords.size()));
         result.append(" ").append(bridgeWord);
       }
 
@@ -188,23 +413,139 @@ public class TextGraphAnalyzer {
     return result.toString();
   }
 
+  /**
+   * 批量生成新文本，对每段输入文本执行与 {@link #generateNewText(WordGraph, String)} 相同的桥接词插入.
+   *
+   * <p>所有文本在同一个冻结图上并行处理，重复出现的单词对只查询一次桥接词。每段文本使用由 {@code seed}
+   * 派生出的独立 {@link SplittableRandom}，因此结果只取决于种子和文本顺序，与线程调度无关.
+   *
+   * @param graph 文本的有向图表示，处理期间不得修改
+   * @param texts 输入文本
+   * @param seed  随机数种子
+   * @return 按输入顺序排列的新文本
+   */
+  public static List<String> generateNewTexts(WordGraph graph, Stream<String> texts, long seed) {
+    List<String> inputs = texts.collect(Collectors.toList());
+    long[] seeds = new SplittableRandom(seed).longs(inputs.size()).toArray();
+    BridgeTextGenerator generator = new BridgeTextGenerator(compactOf(graph));
+    return IntStream.range(0, inputs.size()).parallel()
+        .mapToObj(i -> generator.generate(inputs.get(i), new SplittableRandom(seeds[i])))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * 批量生成新文本. 与 {@link #generateNewTexts(WordGraph, Stream, long)} 相同.
+   *
+   * @param graph 文本的有向图表示，处理期间不得修改
+   * @param texts 输入文本
+   * @param seed  随机数种子
+   * @return 按输入顺序排列的新文本
+   */
+  public static List<String> generateNewTexts(WordGraph graph, Iterable<String> texts,
+      long seed) {
+    return generateNewTexts(graph, StreamSupport.stream(texts.spliterator(), false), seed);
+  }
+
+  /**
+   * 把边权重看作二元组转移次数，按马尔可夫链生成指定长度的文本.
+   *
+   * @param graph       文本的有向图表示
+   * @param startWord   起始单词，为 null 时随机选择
+   * @param length      生成的单词数；在 k 元语法图上是经过的上下文数，第一个上下文完整输出，之后每步输出一个单词
+   * @param temperature 温度，必须大于 0；1 表示按原始频率抽样，越小越偏向高频搭配
+   * @param topK        每个单词最多考虑的后继数，小于等于 0 表示不限制
+   * @param random      随机数生成器，不能被其他线程同时使用
+   * @return 生成的文本，单词之间用空格分隔；起始单词不存在时返回提示信息
+   * @throws IllegalArgumentException 如果温度或长度超出范围
+   */
+  public static String generateMarkovText(WordGraph graph, String startWord, int length,
+      double temperature, int topK, RandomGenerator random) {
+    if (startWord != null && !graph.containsWord(startWord)) {
+      return "No " + startWord.toLowerCase() + " in the graph!";
+    }
+    StringBuilder text = new StringBuilder();
+    try {
+      generateMarkovText(graph, startWord, length, temperature, topK, random, text);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e); // StringBuilder never throws
+    }
+    return text.toString();
+  }
+
+  /**
+   * 按马尔可夫链生成文本，并在生成每个单词时立即写出，不在内存中保存整段文本. 适合直接写入文件以生成大规模语料.
+   *
+   * <p>每个单词的后继按权重排序、截取前 {@code topK} 个并按温度变换后保存为累积和数组，每一步只需一次二分查找，
+   * 代价为 O(log d)。这些数组按 (图的版本, 温度, topK) 缓存。走到没有后继的单词时，从随机单词重新开始.
+   *
+   * @param graph       文本的有向图表示
+   * @param startWord   起始单词，为 null 时随机选择
+   * @param length      生成的单词数；在 k 元语法图上是经过的上下文数，第一个上下文完整输出，之后每步输出一个单词
+   * @param temperature 温度，必须大于 0
+   * @param topK        每个单词最多考虑的后继数，小于等于 0 表示不限制
+   * @param random      随机数生成器，不能被其他线程同时使用
+   * @param out         输出目标，单词之间用空格分隔
+   * @throws IOException              如果写出失败
+   * @throws IllegalArgumentException 如果起始单词不存在，或温度、长度超出范围
+   */
+  public static void generateMarkovText(WordGraph graph, String startWord, int length,
+      double temperature, int topK, RandomGenerator random, Appendable out) throws IOException {
+    if (!(temperature > 0) || Double.isInfinite(temperature)) {
+      throw new IllegalArgumentException("Temperature must be positive: " + temperature);
+    }
+    if (length < 0) {
+      throw new IllegalArgumentException("Length must not be negative: " + length);
+    }
+    if (graph.size() == 0 || length == 0) {
+      return;
+    }
+
+    CompactGraph compact = compactOf(graph);
+    int start = startWord == null
+        ? random.nextInt(compact.size()) : compact.indexOf(startWord.toLowerCase());
+    if (start < 0) {
+      throw new IllegalArgumentException("No " + startWord.toLowerCase() + " in the graph!");
+    }
+    MarkovTextGenerator.of(compact, temperature, topK > 0 ? topK : Integer.MAX_VALUE)
+        .generate(start, length, random, out);
+  }
+
   /**
    * 计算两个单词之间的最短路径。使用 Dijkstra 算法查找从一个单词到另一个单词的最短路径.
    *
+   * <p>搜索在图的紧凑表示上进行，使用支持 decrease-key 的索引二叉堆.
+   *
    * @param graph 文本的有向图表示
    * @param word1 起始单词
    * @param word2 目标单词
    * @return 描述最短路径的字符串，包括路径和距离
    */
-  public static String calcShortestPath(DirectedGraph graph, String word1, String word2) {
+  public static String calcShortestPath(WordGraph graph, String word1, String word2) {
+    return calcShortestPath(graph, word1, word2, PathSearchMode.DIJKSTRA);
+  }
+
+  /**
+   * 使用指定的搜索算法计算两个单词之间的最短路径. 返回格式与 {@link #calcShortestPath(WordGraph, String, String)}
+   * 相同；存在多条等长最短路径时，不同算法可能给出其中不同的一条.
+   *
+   * @param graph 文本的有向图表示
+   * @param word1 起始单词
+   * @param word2 目标单词
+   * @param mode  搜索算法
+   * @return 描述最短路径的字符串，包括路径和距离
+   */
+  public static String calcShortestPath(WordGraph graph, String word1, String word2,
+      PathSearchMode mode) {
     word1 = word1.toLowerCase();
     word2 = word2.toLowerCase();
 
     // Check if both words exist in the graph
-    if (!graph.containsWord(word1) || !graph.containsWord(word2)) {
-      return "No " + (!graph.containsWord(word1) ? word1 : "")
-          + ((!graph.containsWord(word1) && !graph.containsWord(word2)) ? " or " : "")
-          + (!graph.containsWord(word2) ? word2 : "") + " in the graph!";
+    boolean hasWord1 = graph.containsWordNormalized(word1);
+    boolean hasWord2 = graph.containsWordNormalized(word2);
+    if (!hasWord1 || !hasWord2) {
+      return "No " + (!hasWord1 ? word1 : "")
+          + ((!hasWord1 && !hasWord2) ? " or " : "")
+          + (!hasWord2 ? word2 : "") + " in the graph!";
     }
 
     // If words are the same
@@ -212,67 +553,87 @@ public class TextGraphAnalyzer {
       return "Path from " + word1 + " to " + word2 + ": " + word1 + "\nLength: 0";
     }
 
-    // Dijkstra's algorithm
-    Map<String, Integer> distance = new HashMap<>();
-    Map<String, String> previous = new HashMap<>();
-    PriorityQueue<String> queue = new PriorityQueue<>(
-        Comparator.comparingInt(distance::get));
-
-    // Initialize
-    for (String word : graph.getAllWords()) {
-      distance.put(word, Integer.MAX_VALUE);
-      previous.put(word, null);
-    }
-    distance.put(word1, 0);
-    queue.add(word1);
-
-    // Process queue
-    while (!queue.isEmpty()) {
-      String current = queue.poll();
-
-      // If we've reached the target word
-      if (current.equals(word2)) {
+    // Dijkstra's algorithm on the compact graph
+    CompactGraph compact = compactOf(graph);
+    ShortestPathEngine engine = ShortestPathEngine.of(compact);
+    int source = compact.indexOf(word1);
+    int target = compact.indexOf(word2);
+    ShortestPathEngine.Path path;
+    switch (mode) {
+      case BIDIRECTIONAL:
+        path = engine.bidirectionalPath(source, target);
+        break;
+      case ALT:
+        path = engine.landmarkPath(source, target);
+        break;
+      default:
+        path = engine.shortestPath(source, target);
         break;
-      }
-
-      int currentDistance = distance.get(current);
-
-      // For each neighbor of current word
-      for (Map.Entry<String, Integer> neighborEntry : graph.getNeighbors(current).entrySet()) {
-        String neighbor = neighborEntry.getKey();
-        int weight = neighborEntry.getValue();
-        int newDistance = currentDistance + weight;
-
-        if (newDistance < distance.get(neighbor)) {
-          // Remove and re-add to update priority
-          queue.remove(neighbor);
-
-          distance.put(neighbor, newDistance);
-          previous.put(neighbor, current);
-
-          queue.add(neighbor);
-        }
-      }
     }
 
     // Check if a path was found
-    if (distance.get(word2) == Integer.MAX_VALUE) {
+    if (path == null) {
       return "No path exists from " + word1 + " to " + word2 + "!";
     }
 
-    // Reconstruct the path
-    List<String> path = new ArrayList<>();
-    String current = word2;
-    while (current != null) {
-      path.add(current);
-      current = previous.get(current);
+    return formatPath(compact, word1, word2, path);
+  }
+
+  /**
+   * 计算从一个单词到所有其他单词的最短路径. 只运行一次 Dijkstra，得到包含距离和前驱的最短路径树，
+   * 到每个目标的路径在查询时才构造.
+   *
+   * @param graph  文本的有向图表示
+   * @param source 起始单词
+   * @return 最短路径树，起始单词不在图中时返回 null
+   */
+  public static ShortestPathTree calcShortestPathsFrom(WordGraph graph, String source) {
+    CompactGraph compact = compactOf(graph);
+    int id = compact.indexOf(source.toLowerCase());
+    if (id < 0) {
+      return null;
     }
-    Collections.reverse(path);
+    return ShortestPathEngine.of(compact).treeFrom(id);
+  }
+
+  /**
+   * 预先计算图中所有单词之间的最短路径，并保存为磁盘上的最短路径表. 之后的路径查询只需沿表中的前驱链回溯，
+   * 得到的路径字符串与 {@link #calcShortestPath(WordGraph, String, String)} 完全相同。单词过多、前驱矩阵不切实际时
+   * 只保存图，查询改用 ALT 搜索.
+   *
+   * @param graph      文本的有向图表示
+   * @param outputPath 最短路径表文件的路径，已存在时会被覆盖
+   * @return 加载好的最短路径表
+   * @throws IOException 如果写入文件失败
+   */
+  public static DistanceOracle precomputeShortestPaths(WordGraph graph, String outputPath)
+      throws IOException {
+    return DistanceOracle.build(compactOf(graph), Paths.get(outputPath));
+  }
 
-    // Format the result
-    String pathStr = String.join(" → ", path);
+  /**
+   * 加载之前由 {@link #precomputeShortestPaths(WordGraph, String)} 保存的最短路径表.
+   *
+   * @param filePath 最短路径表文件的路径
+   * @return 最短路径表
+   * @throws IOException 如果文件无法读取或格式不正确
+   */
+  public static DistanceOracle loadShortestPaths(String filePath) throws IOException {
+    return DistanceOracle.load(Paths.get(filePath));
+  }
+
+  // Format a path as "Path from a to b: a → ... → b" followed by its length
+  private static String formatPath(CompactGraph compact, String word1, String word2,
+      ShortestPathEngine.Path path) {
+    StringBuilder pathStr = new StringBuilder();
+    for (int i = 0; i < path.nodes.length; i++) {
+      if (i > 0) {
+        pathStr.append(" → ");
+      }
+      pathStr.append(compact.wordAt(path.nodes[i]));
+    }
     return "Path from " + word1 + " to " + word2 + ": "
-        + pathStr + "\nLength: " + distance.get(word2);
+        + pathStr + "\nLength: " + path.length;
   }
 
   /**
@@ -282,129 +643,242 @@ public class TextGraphAnalyzer {
    * @param word  要计算 PageRank 的单词
    * @return 指定单词的 PageRank 值
    */
-  public static Double calcPageRank(DirectedGraph graph, String word) {
+  public static Double calcPageRank(WordGraph graph, String word) {
     word = word.toLowerCase();
-    if (!graph.containsWord(word)) {
+    if (!graph.containsWordNormalized(word)) {
       return -1.0;
     }
+    return calcAllPageRanks(graph).get(word);
+  }
 
-    final int iterations = 500;
-    final double damping = 0.85;
-
-    int n = graph.size();
-    Map<String, Double> rank = new HashMap<>();
-    Map<String, Double> newRank = new HashMap<>();
-
-    // 缓存单词列表，避免多次 getAllWords()
-    Set<String> allWords = graph.getAllWords();
-
-    // 初始化 rank 值
-    double initialRank = 1.0 / n;
-    for (String w : allWords) {
-      rank.put(w, initialRank);
-    }
-
-    for (int i = 0; i < iterations; i++) {
-      // 重置 newRank
-      for (String w : allWords) {
-        newRank.put(w, (1 - damping) / n);
-      }
+  /**
+   * 一次计算所有单词的 PageRank 值，使用默认的收敛容差.
+   *
+   * @param graph 文本的有向图表示
+   * @return 所有单词的 PageRank 值及迭代次数
+   */
+  public static PageRankResult calcAllPageRanks(WordGraph graph) {
+    return calcAllPageRanks(graph, PAGE_RANK_TOLERANCE);
+  }
 
-      // 计算悬挂节点贡献值
-      double danglingWeight = 0;
-      for (String w : allWords) {
-        Map<String, Integer> outLinks = graph.getNeighbors(w);
-        int totalWeight = outLinks.values().stream().mapToInt(Integer::intValue).sum();
-        if (outLinks.isEmpty() || totalWeight == 0) {
-          danglingWeight += damping * rank.get(w) / n;
-        }
+  /**
+   * 一次计算所有单词的 PageRank 值. 当相邻两次迭代的 L1 变化量小于 {@code tolerance} 时停止，
+   * 最多迭代 {@value #PAGE_RANK_MAX_ITERATIONS} 次.
+   *
+   * <p>计算在图的紧凑表示上进行，使用数组保存 rank 值，并在公共 fork-join 线程池上并行迭代。
+   * 结果按图的版本缓存，图未被修改时重复查询不会重新计算；图被修改（例如追加了新的文本）后，
+   * 以修改前的 rank 向量为起点继续迭代，通常只需少量迭代即可重新收敛。热启动后的迭代仍覆盖整个图，
+   * 而不是只在受修改影响的邻域内局部推送残差.
+   *
+   * @param graph     文本的有向图表示
+   * @param tolerance 收敛容差
+   * @return 所有单词的 PageRank 值及迭代次数
+   */
+  public static PageRankResult calcAllPageRanks(WordGraph graph, double tolerance) {
+    Object key = AnalysisCache.parameterized("pageRank", tolerance);
+    return graph.updatedAnalysis(key, (RankSeed previous) -> {
+      CompactGraph compact = compactOf(graph);
+      PageRankEngine engine = new PageRankEngine(compact, ForkJoinPool.commonPool());
+      if (previous == null) {
+        return engine.run(PAGE_RANK_DAMPING, tolerance, PAGE_RANK_MAX_ITERATIONS);
       }
+      return engine.run(PAGE_RANK_DAMPING, tolerance, PAGE_RANK_MAX_ITERATIONS,
+          previous.warmStart(compact));
+    }, RankSeed::new);
+  }
 
-      // 给所有节点加上 danglingWeight
-      for (String w : allWords) {
-        newRank.put(w, newRank.get(w) + danglingWeight);
+  /**
+   * 一次 PageRank 结果中供下次热启动使用的部分：单词及其 rank 值. 不引用旧的紧凑图，旧图可以被及时回收.
+   */
+  private static final class RankSeed {
+
+    private final String[] words;
+    private final double[] ranks;
+
+    RankSeed(PageRankResult result) {
+      int n = result.graph().size();
+      words = new String[n];
+      ranks = new double[n];
+      for (int id = 0; id < n; id++) {
+        words[id] = result.graph().wordAt(id);
+        ranks[id] = result.rank(id);
       }
+    }
 
-      // 分配 PageRank 给邻居
-      for (String w : allWords) {
-        Map<String, Integer> outLinks = graph.getNeighbors(w);
-        int totalWeight = outLinks.values().stream().mapToInt(Integer::intValue).sum();
-        if (totalWeight > 0) {
-          for (Map.Entry<String, Integer> outLink : outLinks.entrySet()) {
-            String neighbor = outLink.getKey();
-            int weight = outLink.getValue();
-            double addition = damping * rank.get(w) * (weight / (double) totalWeight);
-            newRank.put(neighbor, newRank.get(neighbor) + addition);
-          }
+    // Carry the ranks over by word; new words start at 1/n, then rescale to sum to 1
+    double[] warmStart(CompactGraph graph) {
+      int n = graph.size();
+      double[] rank = new double[n];
+      Arrays.fill(rank, 1.0 / n);
+      for (int old = 0; old < words.length; old++) {
+        int id = graph.indexOf(words[old]);
+        if (id >= 0) {
+          rank[id] = ranks[old];
         }
       }
-
-      // 更新 rank
-      Map<String, Double> temp = rank;
-      rank = newRank;
-      newRank = temp;
-    }
-
-    // 归一化 rank 值
-    double sum = rank.values().stream().mapToDouble(Double::doubleValue).sum();
-    if (Math.abs(sum - 1.0) > 0.001) {
-      for (Map.Entry<String, Double> entry : rank.entrySet()) {
-        entry.setValue(entry.getValue() / sum);
+      double total = 0;
+      for (double r : rank) {
+        total += r;
       }
+      for (int id = 0; id < n; id++) {
+        rank[id] /= total;
+      }
+      return rank;
     }
+  }
 
-    return rank.get(word);
+  // Get the compact form of a graph, reusing the cached one while the graph is unchanged
+  static CompactGraph compactOf(WordGraph graph) {
+    return graph.freeze();
   }
 
 
+  // Give a new thread its own generator, split from the shared root
+  private static synchronized RandomGenerator splitRandomRoot() {
+    return RANDOM_ROOT.split();
+  }
+
   /**
    * 在有向图上执行随机游走。从随机节点开始，随机选择下一个节点，直到遇到已访问的边或无法继续.
    *
+   * <p>随机选择使用当前线程自己的 {@link SplittableRandom}，多个线程同时游走时不存在竞争.
+   *
    * @param graph 文本的有向图表示
    * @return 描述随机游走路径的字符串
    */
-  public static String randomWalk(DirectedGraph graph) {
+  public static String randomWalk(WordGraph graph) {
+    return randomWalk(graph, DEFAULT_RANDOM.get());
+  }
+
+  /**
+   * 使用指定的随机数生成器在有向图上执行随机游走. 传入固定种子的生成器可以得到可重复的游走路径.
+   *
+   * @param graph  文本的有向图表示
+   * @param random 随机数生成器，不能被其他线程同时使用
+   * @return 描述随机游走路径的字符串
+   */
+  public static String randomWalk(WordGraph graph, RandomGenerator random) {
     if (graph.size() == 0) {
       return "Graph is empty.";
     }
 
-    // Select a random starting node
-    List<String> allWords = new ArrayList<>(graph.getAllWords());
-    String currentWord = allWords.get(secureRandom.nextInt(allWords.size()));
-
-    List<String> path = new ArrayList<>();
-    Set<String> visitedEdges = new HashSet<>();
-    path.add(currentWord);
+    CompactGraph compact = compactOf(graph);
+    RandomWalkEngine.Walker walker = RandomWalkEngine.of(compact).walker();
+    int length = walker.walk(random);
 
-    while (true) {
-      // Get neighbors
-      Map<String, Integer> neighbors = graph.getNeighbors(currentWord);
+    // Format the path
+    List<String> path = new ArrayList<>(length);
+    for (int i = 0; i < length; i++) {
+      path.add(compact.emittedAt(i > 0 ? walker.path(i - 1) : -1, walker.path(i)));
+    }
+    if (walker.endedOnRepeatedEdge()) {
+      path.set(length - 1, path.get(length - 1) + " (repeated edge)");
+    }
+    return String.join(" -> ", path);
+  }
 
-      // Exit if no outgoing edges
-      if (neighbors.isEmpty()) {
-        break;
-      }
+  /**
+   * 按边权重比例执行带重启的随机游走. 每一步通过预先建立的别名表在 O(1) 时间内抽取下一条边，
+   * 因此路径遵循原文中真实的二元组频率.
+   *
+   * <p>游走从随机单词开始，直到路径达到 {@code maxLength} 个单词。不在起始单词时，每一步以
+   * {@code restartProbability} 的概率跳回起始单词；走到没有出边的单词时同样跳回，起始单词本身没有出边时提前结束.
+   *
+   * @param graph              文本的有向图表示
+   * @param restartProbability 每一步跳回起始单词的概率，范围为 [0, 1)
+   * @param maxLength          路径的最大单词数，至少为 1
+   * @param random             随机数生成器，不能被其他线程同时使用
+   * @return 描述随机游走路径的字符串
+   * @throws IllegalArgumentException 如果参数超出范围
+   */
+  public static String weightedRandomWalk(WordGraph graph, double restartProbability,
+      int maxLength, RandomGenerator random) {
+    checkWalkParameters(restartProbability, maxLength);
+    if (graph.size() == 0) {
+      return "Graph is empty.";
+    }
 
-      // Choose a random neighbor
-      List<String> neighborList = new ArrayList<>(neighbors.keySet());
-      String nextWord = neighborList.get(secureRandom.nextInt(neighborList.size()));
+    CompactGraph compact = compactOf(graph);
+    RandomWalkEngine.Walker walker = RandomWalkEngine.of(compact).walker();
+    int length = walker.walkWeighted(random, AliasTable.of(compact), restartProbability,
+        maxLength);
 
-      // Create edge key
-      String edge = currentWord + "->" + nextWord;
+    List<String> path = new ArrayList<>(length);
+    for (int i = 0; i < length; i++) {
+      path.add(compact.emittedAt(i > 0 ? walker.path(i - 1) : -1, walker.path(i)));
+    }
+    return String.join(" -> ", path);
+  }
 
-      // Exit if edge already visited
-      if (visitedEdges.contains(edge)) {
-        path.add(nextWord + " (repeated edge)");
-        break;
-      }
+  /**
+   * 并行生成多条按边权重抽样、带重启的随机游走，每条游走的规则与
+   * {@link #weightedRandomWalk(WordGraph, double, int, RandomGenerator)} 相同.
+   *
+   * @param graph              文本的有向图表示，游走期间不得修改
+   * @param count              游走的条数
+   * @param restartProbability 每一步跳回起始单词的概率，范围为 [0, 1)
+   * @param maxLength          每条游走的最大单词数，至少为 1
+   * @param seed               随机数种子
+   * @param sink               按生成顺序接收每条游走经过的单词
+   * @throws IllegalArgumentException 如果参数超出范围
+   */
+  public static void weightedRandomWalks(WordGraph graph, int count, double restartProbability,
+      int maxLength, long seed, Consumer<List<String>> sink) {
+    checkWalkParameters(restartProbability, maxLength);
+    RandomWalkEngine.of(compactOf(graph))
+        .weightedWalks(count, restartProbability, maxLength, seed, sink);
+  }
 
-      visitedEdges.add(edge);
-      path.add(nextWord);
-      currentWord = nextWord;
+  private static void checkWalkParameters(double restartProbability, int maxLength) {
+    if (!(restartProbability >= 0 && restartProbability < 1)) {
+      throw new IllegalArgumentException("Restart probability must be in [0, 1): "
+          + restartProbability);
     }
+    if (maxLength < 1) {
+      throw new IllegalArgumentException("Maximum walk length must be positive: " + maxLength);
+    }
+  }
 
-    // Format the path
-    return String.join(" -> ", path);
+  /**
+   * 并行生成多条随机游走，每条游走的规则与 {@link #randomWalk(WordGraph)} 相同，适合为
+   * DeepWalk/node2vec 一类的词向量训练批量采样语料.
+   *
+   * <p>游走在图的紧凑表示上进行，只使用整数编号和可复用的位图记录走过的边。每组游走使用由 {@code seed}
+   * 派生的独立随机数生成器，结果按生成顺序依次交给 {@code sink}，只取决于种子.
+   *
+   * @param graph 文本的有向图表示，游走期间不得修改
+   * @param count 游走的条数
+   * @param seed  随机数种子
+   * @param sink  接收每条游走经过的单词；因重复边结束时，最后一个单词是重复边的终点
+   */
+  public static void randomWalks(WordGraph graph, int count, long seed,
+      Consumer<List<String>> sink) {
+    RandomWalkEngine.of(compactOf(graph)).walks(count, seed, sink);
+  }
+
+  /**
+   * 并行生成多条随机游走并写入文本文件，每行一条游走，单词之间用空格分隔.
+   *
+   * @param graph      文本的有向图表示，游走期间不得修改
+   * @param count      游走的条数
+   * @param seed       随机数种子
+   * @param outputPath 输出文件路径，已存在时会被覆盖
+   * @throws IOException 如果写入文件失败
+   */
+  public static void randomWalksToFile(WordGraph graph, int count, long seed, String outputPath)
+      throws IOException {
+    try (Writer writer = Files.newBufferedWriter(Paths.get(outputPath), StandardCharsets.UTF_8)) {
+      randomWalks(graph, count, seed, walk -> {
+        try {
+          writer.write(String.join(" ", walk));
+          writer.write('\n');
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
   }
 
   /**
@@ -415,7 +889,7 @@ public class TextGraphAnalyzer {
    * @param format         The output format (dot, png, svg, pdf)
    * @return Whether the operation was successful
    */
-  public static boolean saveGraphToFile(DirectedGraph graph, String outputFilePath, String format) {
+  public static boolean saveGraphToFile(WordGraph graph, String outputFilePath, String format) {
     try {
       // Ensure the output directory exists
       File outputFile = new File(outputFilePath);
@@ -457,7 +931,7 @@ public class TextGraphAnalyzer {
   /**
    * Generate a DOT file from the graph.
    */
-  private static void generateDotFile(DirectedGraph graph, String filePath) throws IOException {
+  private static void generateDotFile(WordGraph graph, String filePath) throws IOException {
     try (Writer writer =
         new OutputStreamWriter(new FileOutputStream(filePath), StandardCharsets.UTF_8)) {
       writer.write("digraph TextGraph {\n");
@@ -479,7 +953,7 @@ public class TextGraphAnalyzer {
       for (String from : graph.getAllWords()) {
         String sanitizedFrom = from.replace("\"", "\\\"");
 
-        Map<String, Integer> neighbors = graph.getNeighbors(from);
+        Map<String, Integer> neighbors = graph.getNeighborsNormalized(from);
         for (Map.Entry<String, Integer> entry : neighbors.entrySet()) {
           String to = entry.getKey();
           int weight = entry.getValue();
@@ -557,7 +1031,7 @@ public class TextGraphAnalyzer {
    * @return true if the operation was successful, false otherwise
    */
   public static boolean saveEnhancedGraphToFile(
-      DirectedGraph graph, String filePath, String format) {
+      WordGraph graph, String filePath, String format) {
     try {
       // Create a temporary DOT file
       File dotFile = File.createTempFile("graph_", ".dot");
@@ -610,7 +1084,7 @@ public class TextGraphAnalyzer {
 
         // Add edges with weights
         for (String source : graph.getAllWords()) {
-          Map<String, Integer> neighbors = graph.getNeighbors(source);
+          Map<String, Integer> neighbors = graph.getNeighborsNormalized(source);
 
           for (Map.Entry<String, Integer> edge : neighbors.entrySet()) {
             String target = edge.getKey();
@@ -659,12 +1133,26 @@ public class TextGraphAnalyzer {
 
   /**
    * {@code DirectedGraph} 是一个有向图的实现. 提供添加单词、添加边、检查单词存在性、获取邻居等功能.
+   *
+   * <p>构建完成后可以通过 {@link #freeze()} 转换为更紧凑的 {@link CompactGraph}，所有分析算法都可以运行在二者之上.
+   *
+   * <p>{@link #snapshot()} 以 O(1) 的代价生成不可变快照：快照与图共享内部的哈希表，之后图在第一次修改时才复制外层映射，
+   * 并在每个单词的出边第一次被修改时复制该单词的出边映射（写时复制），快照看到的内容始终不变。每行出边记录自己被复制时的
+   * 快照代数，判断是否需要复制不需要额外的集合.
    */
 
-  public static class DirectedGraph {
+  public static class DirectedGraph implements WordGraph {
+
+    private static final Map<String, Integer> NO_NEIGHBORS = Collections.emptyMap();
 
-    Map<String, Map<String, Integer>> adjacencyList = new HashMap<>();
-    Set<String> allWords = new HashSet<>();
+    Map<String, Row> adjacencyList = new HashMap<>();
+    private Set<String> allWordsView = Collections.unmodifiableSet(adjacencyList.keySet());
+    // Copy-on-write state: whether a snapshot shares the outer map, and the current snapshot
+    // generation; rows stamped with an older generation may be shared with a snapshot
+    private boolean outerShared;
+    private long generation;
+    private final AnalysisCache analysisCache = new AnalysisCache();
+    private long version;
 
     /**
      * 添加一个单词到图中. 如果单词已经存在，则不做任何操作.
@@ -672,11 +1160,57 @@ public class TextGraphAnalyzer {
      * @param word 要添加的单词
      */
     public void addWord(String word) {
-      word = word.toLowerCase();
-      allWords.add(word);
+      addWordNormalized(word.toLowerCase());
+    }
+
+    /**
+     * 添加一个已经是小写形式的单词，不再做大小写转换. 如果单词已经存在，则不做任何操作.
+     *
+     * @param word 要添加的小写单词
+     */
+    public void addWordNormalized(String word) {
       if (!adjacencyList.containsKey(word)) {
-        adjacencyList.put(word, new HashMap<>());
+        edgesOf(word);
+      }
+    }
+
+    // Get the mutable out-edge map of a lowercase word, adding the word if it is new
+    private Map<String, Integer> edgesOf(String word) {
+      Row row = adjacencyList.get(word);
+      if (row == null) {
+        row = new Row(new HashMap<>(), generation);
+        ownAdjacencyList().put(word, row);
+        version++;
+      } else if (row.generation != generation) {
+        // The row may still be shared with a snapshot; copy it before the first write
+        row = new Row(new HashMap<>(row.edges), generation);
+        ownAdjacencyList().put(word, row);
       }
+      return row.edges;
+    }
+
+    // Get the outer map for writing, copying it first if a snapshot shares it
+    private Map<String, Row> ownAdjacencyList() {
+      if (outerShared) {
+        adjacencyList = new HashMap<>(adjacencyList);
+        allWordsView = Collections.unmodifiableSet(adjacencyList.keySet());
+        outerShared = false;
+      }
+      return adjacencyList;
+    }
+
+    /**
+     * 生成图当前内容的不可变快照，代价为 O(1). 快照可以交给其他线程运行最短路径、PageRank、随机游走等耗时的分析，
+     * 同时本图继续被修改：修改会先复制被快照共享的哈希表，不会影响快照.
+     *
+     * <p>本方法需要由修改图的线程调用（或与修改同步），返回的快照可以被任意线程同时读取.
+     *
+     * @return 不可变的图快照
+     */
+    public WordGraph snapshot() {
+      outerShared = true;
+      generation++;
+      return new Snapshot(adjacencyList);
     }
 
     /**
@@ -687,14 +1221,33 @@ public class TextGraphAnalyzer {
      * @param to   The ending word
      */
     public void addEdge(String from, String to) {
-      from = from.toLowerCase();
-      to = to.toLowerCase();
+      addEdge(from, to, 1);
+    }
 
-      addWord(from);
-      addWord(to);
+    /**
+     * Add an edge between two words, incrementing its weight by the given count. If the words do
+     * not exist, they will be added.
+     *
+     * @param from  The starting word
+     * @param to    The ending word
+     * @param count The number of occurrences to add to the edge weight
+     */
+    public void addEdge(String from, String to, int count) {
+      addEdgeNormalized(from.toLowerCase(), to.toLowerCase(), count);
+    }
 
-      Map<String, Integer> edges = adjacencyList.get(from);
-      edges.put(to, edges.getOrDefault(to, 0) + 1);
+    /**
+     * Add an edge between two words that are already lowercase, skipping case conversion.
+     *
+     * @param from  The lowercase starting word
+     * @param to    The lowercase ending word
+     * @param count The number of occurrences to add to the edge weight
+     */
+    public void addEdgeNormalized(String from, String to, int count) {
+      Map<String, Integer> edges = edgesOf(from);
+      addWordNormalized(to);
+      edges.merge(to, count, Integer::sum);
+      version++;
     }
 
     /**
@@ -703,8 +1256,14 @@ public class TextGraphAnalyzer {
      * @param word The word to check
      * @return true if the word exists, false otherwise
      */
+    @Override
     public boolean containsWord(String word) {
-      return allWords.contains(word.toLowerCase());
+      return containsWordNormalized(word.toLowerCase());
+    }
+
+    @Override
+    public boolean containsWordNormalized(String word) {
+      return adjacencyList.containsKey(word);
     }
 
     /**
@@ -713,14 +1272,21 @@ public class TextGraphAnalyzer {
      * @param word The word to get neighbors for
      * @return A map of neighboring words and their weights
      */
+    @Override
     public Map<String, Integer> getNeighbors(String word) {
-      word = word.toLowerCase();
-      return adjacencyList.getOrDefault(word, new HashMap<>());
+      return getNeighborsNormalized(word.toLowerCase());
+    }
+
+    @Override
+    public Map<String, Integer> getNeighborsNormalized(String word) {
+      Row row = adjacencyList.get(word);
+      return row != null ? row.edges : NO_NEIGHBORS;
     }
 
     // Get all words in the graph
+    @Override
     public Set<String> getAllWords() {
-      return Collections.unmodifiableSet(allWords);
+      return allWordsView;
     }
 
     /**
@@ -728,8 +1294,130 @@ public class TextGraphAnalyzer {
      *
      * @return The number of unique words in the graph
      */
+    @Override
     public int size() {
-      return allWords.size();
+      return adjacencyList.size();
+    }
+
+    /**
+     * 冻结当前的图，生成紧凑的不可变表示. 之后对本图的修改不会影响返回的结果；图未被修改时返回同一个实例.
+     *
+     * @return 基于整数编号和 CSR 数组的紧凑图
+     */
+    @Override
+    public CompactGraph freeze() {
+      return cachedAnalysis(CompactGraph.class, () -> CompactGraph.of(this));
+    }
+
+    /**
+     * 获取图的版本号. 每次添加新单词或边时版本号都会增加，可以用来判断缓存的分析结果是否过期.
+     *
+     * @return 当前版本号
+     */
+    public long version() {
+      return version;
+    }
+
+    /**
+     * 获取针对整个图的分析结果. 结果与当前版本号一起缓存，图被修改后会重新计算.
+     *
+     * @param key         分析的键，需要正确实现 equals 和 hashCode
+     * @param computation 计算结果的函数，不能返回 null
+     * @param <T>         结果类型
+     * @return 缓存的或新计算的结果
+     */
+    @Override
+    public <T> T cachedAnalysis(Object key, Supplier<T> computation) {
+      return analysisCache.get(version, key, computation);
+    }
+
+    /**
+     * 获取针对整个图的分析结果. 图被修改后，计算函数会收到修改前最后一次结果的种子，可以以它为起点增量计算.
+     *
+     * @param key         分析的键，需要正确实现 equals 和 hashCode
+     * @param computation 由之前结果的种子（没有时为 null）计算新结果的函数，不能返回 null
+     * @param seedOf      从结果中提取供下次计算使用的种子的函数
+     * @param <S>         种子类型
+     * @param <T>         结果类型
+     * @return 缓存的或新计算的结果
+     */
+    @Override
+    public <S, T> T updatedAnalysis(Object key, Function<S, T> computation,
+        Function<T, S> seedOf) {
+      return analysisCache.getUpdated(version, key, computation, seedOf);
+    }
+
+    /**
+     * 一个单词的出边，以及它最后一次被复制时的快照代数. 代数落后于图的当前代数时，这一行可能被快照共享.
+     */
+    private static final class Row {
+
+      final Map<String, Integer> edges;
+      final long generation;
+
+      Row(Map<String, Integer> edges, long generation) {
+        this.edges = edges;
+        this.generation = generation;
+      }
+    }
+
+    /**
+     * {@link DirectedGraph} 在某一版本的不可变快照. 它直接引用生成快照时图的哈希表，图之后的修改都先复制这些表，
+     * 因此快照无需加锁即可被多个线程同时读取，分析结果也只需计算一次.
+     */
+    private static final class Snapshot implements WordGraph {
+
+      private final Map<String, Row> adjacencyList;
+      private final Set<String> allWordsView;
+      private final AnalysisCache analysisCache = new AnalysisCache();
+
+      Snapshot(Map<String, Row> adjacencyList) {
+        this.adjacencyList = adjacencyList;
+        this.allWordsView = Collections.unmodifiableSet(adjacencyList.keySet());
+      }
+
+      @Override
+      public boolean containsWord(String word) {
+        return containsWordNormalized(word.toLowerCase());
+      }
+
+      @Override
+      public boolean containsWordNormalized(String word) {
+        return adjacencyList.containsKey(word);
+      }
+
+      @Override
+      public Map<String, Integer> getNeighbors(String word) {
+        return getNeighborsNormalized(word.toLowerCase());
+      }
+
+      @Override
+      public Map<String, Integer> getNeighborsNormalized(String word) {
+        Row row = adjacencyList.get(word);
+        return row != null ? Collections.unmodifiableMap(row.edges) : NO_NEIGHBORS;
+      }
+
+      @Override
+      public Set<String> getAllWords() {
+        return allWordsView;
+      }
+
+      @Override
+      public int size() {
+        return adjacencyList.size();
+      }
+
+      // The snapshot is immutable, so cached results never go stale
+      @Override
+      public <T> T cachedAnalysis(Object key, Supplier<T> computation) {
+        return analysisCache.get(0, key, computation);
+      }
+
+      @Override
+      public <S, T> T updatedAnalysis(Object key, Function<S, T> computation,
+          Function<T, S> seedOf) {
+        return analysisCache.getUpdated(0, key, computation, seedOf);
+      }
     }
   }
 }
\ No newline at end of file
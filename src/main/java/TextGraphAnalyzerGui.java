@@ -12,7 +12,6 @@ import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -44,7 +43,7 @@ import org.apache.batik.swing.JSVGCanvas;
  */
 public class TextGraphAnalyzerGui extends JFrame {
 
-  private TextGraphAnalyzer.DirectedGraph graph;
+  private CompactGraph graph;
   private JTextArea outputArea;
   private JTextField word1Field;
   private JTextField word2Field;
@@ -367,7 +366,8 @@ public class TextGraphAnalyzerGui extends JFrame {
       currentFilePath = file.getAbsolutePath();
 
       try {
-        graph = TextGraphAnalyzer.createGraphFromFile(currentFilePath);
+        // Reuses the cached binary snapshot when the file is unchanged
+        graph = TextGraphAnalyzer.loadGraph(currentFilePath);
         outputArea.setText("Graph created successfully from file: " + file.getName() + "\n");
         outputArea.append("Total words (nodes): " + graph.size() + "\n");
 
@@ -627,17 +627,24 @@ public class TextGraphAnalyzerGui extends JFrame {
     }
 
     if (targetWord.isEmpty()) {
-      // Calculate shortest paths from sourceWord to all other words
+      // Calculate shortest paths from sourceWord to all other words with a single search
+      ShortestPathTree tree = TextGraphAnalyzer.calcShortestPathsFrom(graph, sourceWord);
+      if (tree == null) {
+        outputArea.setText("No " + sourceWord.toLowerCase() + " in the graph!\n");
+        return;
+      }
       outputArea.setText("Shortest paths from " + sourceWord + " to all other words:\n\n");
 
       List<String> destinations = new ArrayList<>(graph.getAllWords());
       Collections.sort(destinations);
 
+      StringBuilder paths = new StringBuilder();
       for (String target : destinations) {
-        if (!target.equals(sourceWord)) {
-          outputArea.append(TextGraphAnalyzer.calcShortestPath(graph, sourceWord, target) + "\n\n");
+        if (!target.equals(tree.source())) {
+          paths.append(tree.describePathTo(target)).append("\n\n");
         }
       }
+      outputArea.append(paths.toString());
     } else {
       String result = TextGraphAnalyzer.calcShortestPath(graph, sourceWord, targetWord);
       outputArea.setText(result + "\n");
@@ -654,19 +661,16 @@ public class TextGraphAnalyzerGui extends JFrame {
     }
 
     if (word.isEmpty()) {
-      // Calculate PageRank for all words and sort by value
-      Map<String, Double> allRanks = new HashMap<>();
+      // Calculate PageRank for all words in one run and sort by value
       outputArea.setText("Calculating PageRank values for all words...\n\n");
-
-      for (String w : graph.getAllWords()) {
-        allRanks.put(w, TextGraphAnalyzer.calcPageRank(graph, w));
-      }
+      PageRankResult allRanks = TextGraphAnalyzer.calcAllPageRanks(graph);
 
       // Sort by PageRank value (descending)
-      List<Map.Entry<String, Double>> sortedRanks = new ArrayList<>(allRanks.entrySet());
+      List<Map.Entry<String, Double>> sortedRanks = new ArrayList<>(allRanks.asMap().entrySet());
       sortedRanks.sort(Map.Entry.<String, Double>comparingByValue().reversed());
 
-      outputArea.append("PageRank values for all words (sorted):\n");
+      outputArea.append("PageRank values for all words (sorted, "
+          + allRanks.iterations() + " iterations):\n");
       for (Map.Entry<String, Double> entry : sortedRanks) {
         outputArea.append(String.format("%s: %.4f%n", entry.getKey(), entry.getValue()));
       }
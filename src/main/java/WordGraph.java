@@ -0,0 +1,116 @@
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@code WordGraph} 是单词有向图的只读接口. {@link TextGraphAnalyzer} 中的分析算法都基于该接口，
+ * 因此既可以运行在可修改的 {@link TextGraphAnalyzer.DirectedGraph} 上，也可以运行在冻结后的 {@link CompactGraph} 上.
+ */
+public interface WordGraph {
+
+  /**
+   * Check if a word exists in the graph.
+   *
+   * @param word The word to check
+   * @return true if the word exists, false otherwise
+   */
+  boolean containsWord(String word);
+
+  /**
+   * 检查一个已经是小写形式的单词是否存在，不再做大小写转换.
+   *
+   * @param word 小写单词
+   * @return 存在时返回 true
+   */
+  boolean containsWordNormalized(String word);
+
+  /**
+   * Get the neighbors of a word and their weights.
+   *
+   * @param word The word to get neighbors for
+   * @return A map of neighboring words and their weights, which callers must not modify
+   */
+  Map<String, Integer> getNeighbors(String word);
+
+  /**
+   * 获取一个已经是小写形式的单词的邻居，不再做大小写转换. 单词不存在时返回共享的空映射，不会分配新对象.
+   *
+   * @param word 小写单词
+   * @return 邻居单词及边权重的映射，调用方不得修改
+   */
+  Map<String, Integer> getNeighborsNormalized(String word);
+
+  /**
+   * 获取指向一个单词的所有前驱单词及边权重.
+   *
+   * @param word 单词（不区分大小写）
+   * @return 前驱单词及边权重的映射，调用方不得修改
+   */
+  default Map<String, Integer> getPredecessors(String word) {
+    return getPredecessorsNormalized(word.toLowerCase());
+  }
+
+  /**
+   * 获取一个已经是小写形式的单词的前驱，不再做大小写转换. 默认实现读取 {@link #freeze()} 的入边索引，
+   * 因此结果是调用时图的一个快照，图被修改后的第一次查询会重新冻结整个图.
+   *
+   * @param word 小写单词
+   * @return 前驱单词及边权重的映射，单词不存在时为空，调用方不得修改
+   */
+  default Map<String, Integer> getPredecessorsNormalized(String word) {
+    return freeze().getPredecessorsNormalized(word);
+  }
+
+  /**
+   * Get all words in the graph.
+   *
+   * @return A read-only set of all words
+   */
+  Set<String> getAllWords();
+
+  /**
+   * Get the size of the graph (number of unique words).
+   *
+   * @return The number of unique words in the graph
+   */
+  int size();
+
+  /**
+   * 生成图的紧凑不可变表示，所有基于编号的算法都运行在它之上. 默认实现通过 {@link CompactGraph#of(WordGraph)}
+   * 转换，并借助 {@link #cachedAnalysis(Object, Supplier)} 在图未被修改时复用同一个实例.
+   *
+   * @return 基于整数编号和 CSR 数组的紧凑图
+   */
+  default CompactGraph freeze() {
+    return cachedAnalysis(CompactGraph.class, () -> CompactGraph.of(this));
+  }
+
+  /**
+   * 获取针对整个图的分析结果，并在图未被修改时复用它. 默认实现不做缓存，每次都重新计算.
+   *
+   * @param key         分析的键，需要正确实现 equals 和 hashCode
+   * @param computation 计算结果的函数，不能返回 null
+   * @param <T>         结果类型
+   * @return 缓存的或新计算的结果
+   */
+  default <T> T cachedAnalysis(Object key, Supplier<T> computation) {
+    return computation.get();
+  }
+
+  /**
+   * 获取针对整个图的分析结果，并在图被修改后以上一次结果的种子为起点增量地重新计算. 缓存只保留由
+   * {@code seedOf} 提取的种子（例如 rank 向量），不保留旧结果本身. 默认实现不做缓存，计算函数总是收到 null.
+   *
+   * @param key         分析的键，需要正确实现 equals 和 hashCode
+   * @param computation 由之前结果的种子（没有时为 null）计算新结果的函数，不能返回 null
+   * @param seedOf      从结果中提取供下次计算使用的种子的函数
+   * @param <S>         种子类型
+   * @param <T>         结果类型
+   * @return 缓存的或新计算的结果
+   */
+  default <S, T> T updatedAnalysis(Object key, Function<S, T> computation,
+      Function<T, S> seedOf) {
+    return computation.apply(null);
+  }
+}
@@ -0,0 +1,130 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@code WordTokenizer} 以字节为单位增量扫描文本，并把连续的 ASCII 字母切分为小写单词.
+ *
+ * <p>切分规则与 {@code [a-zA-Z]+} 正则一致：任何非 A-Z/a-z 的字节（包括标点、换行以及 UTF-8 多字节字符的各个字节）
+ * 都视为分隔符。分词器只保留当前尚未结束的单词，因此可以分块喂入任意大小的输入，内存占用与文件大小无关。
+ */
+final class WordTokenizer {
+
+  /**
+   * 接收分词结果的回调.
+   */
+  interface WordSink {
+
+    /**
+     * 接收一个已经转为小写的单词.
+     *
+     * @param word 小写单词
+     */
+    void accept(String word);
+  }
+
+  /**
+   * 把相邻单词作为边依次加入图中的 {@link WordSink}，只保留上一个单词.
+   */
+  static final class BigramSink implements WordSink {
+
+    private final TextGraphAnalyzer.DirectedGraph graph;
+    private String previous;
+
+    BigramSink(TextGraphAnalyzer.DirectedGraph graph) {
+      this(graph, null);
+    }
+
+    /**
+     * 创建接着之前的输入继续加边的 sink.
+     *
+     * @param graph    要加边的图
+     * @param previous 之前输入的最后一个单词，没有时为 null
+     */
+    BigramSink(TextGraphAnalyzer.DirectedGraph graph, String previous) {
+      this.graph = graph;
+      this.previous = previous;
+    }
+
+    @Override
+    public void accept(String word) {
+      if (previous != null) {
+        graph.addEdgeNormalized(previous, word, 1);
+      }
+      previous = word;
+    }
+
+    /**
+     * Get the last word that was fed into the graph.
+     *
+     * @return The last word, or null if no word has been seen yet
+     */
+    String previous() {
+      return previous;
+    }
+  }
+
+  private final WordSink sink;
+  private byte[] word = new byte[32];
+  private int length;
+
+  WordTokenizer(WordSink sink) {
+    this.sink = sink;
+  }
+
+  /**
+   * 判断一个字节是否为 ASCII 字母.
+   *
+   * @param b 要判断的字节
+   * @return 是字母时返回 true
+   */
+  static boolean isLetter(byte b) {
+    return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+  }
+
+  /**
+   * 扫描缓冲区中从 position 到 limit 的全部字节. 跨越缓冲区边界的单词会保留到下一次调用.
+   *
+   * @param bytes 要扫描的字节，扫描后 position 等于 limit
+   */
+  void feed(ByteBuffer bytes) {
+    int limit = bytes.limit();
+    for (int i = bytes.position(); i < limit; i++) {
+      byte b = bytes.get(i);
+      if (isLetter(b)) {
+        if (length == word.length) {
+          byte[] grown = new byte[length * 2];
+          System.arraycopy(word, 0, grown, 0, length);
+          word = grown;
+        }
+        // Fold ASCII upper case to lower case
+        word[length++] = (byte) (b | 0x20);
+      } else if (length > 0) {
+        emit();
+      }
+    }
+    bytes.position(limit);
+  }
+
+  /**
+   * 获取尚未结束的单词已经读入的字节数，即最近一次 {@link #feed(ByteBuffer)} 末尾处未输出的字母数.
+   *
+   * @return 未输出的字节数
+   */
+  int pendingLength() {
+    return length;
+  }
+
+  /**
+   * 输入结束，输出尚未结束的最后一个单词.
+   */
+  void finish() {
+    if (length > 0) {
+      emit();
+    }
+  }
+
+  private void emit() {
+    sink.accept(new String(word, 0, length, StandardCharsets.ISO_8859_1));
+    length = 0;
+  }
+}
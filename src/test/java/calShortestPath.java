@@ -1,6 +1,18 @@
 import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class calcShortestPathTest {
 
@@ -62,4 +74,190 @@ class calcShortestPathTest {
     String result = TextGraphAnalyzer.calcShortestPath(isolatedGraph, "A", "D");
     assertTrue(result.contains("No path exists from a to d!"));
   }
+
+  // 基于 HashMap 的朴素 Dijkstra，只返回最短距离，作为参照
+  static long referenceDistance(WordGraph g, String from, String to) {
+    Map<String, Long> distance = new HashMap<>();
+    Set<String> settled = new HashSet<>();
+    distance.put(from, 0L);
+    while (true) {
+      String current = null;
+      for (Map.Entry<String, Long> entry : distance.entrySet()) {
+        if (!settled.contains(entry.getKey())
+            && (current == null || entry.getValue() < distance.get(current))) {
+          current = entry.getKey();
+        }
+      }
+      if (current == null) {
+        return -1;
+      }
+      if (current.equals(to)) {
+        return distance.get(current);
+      }
+      settled.add(current);
+      for (Map.Entry<String, Integer> edge : g.getNeighbors(current).entrySet()) {
+        long d = distance.get(current) + edge.getValue();
+        distance.merge(edge.getKey(), d, Math::min);
+      }
+    }
+  }
+
+  @Test
+  void testLengthsMatchReferenceForAllPairs() throws IOException {
+    TextGraphAnalyzer.DirectedGraph book =
+        TextGraphAnalyzer.createGraphFromFile("test/Easy Test.txt");
+    for (String from : book.getAllWords()) {
+      for (String to : book.getAllWords()) {
+        long expected = referenceDistance(book, from, to);
+        for (PathSearchMode mode : PathSearchMode.values()) {
+          String result = TextGraphAnalyzer.calcShortestPath(book, from, to, mode);
+          if (expected < 0) {
+            assertEquals("No path exists from " + from + " to " + to + "!", result);
+          } else {
+            assertTrue(result.endsWith("\nLength: " + expected), mode + ": " + result);
+            assertTrue(result.startsWith("Path from " + from + " to " + to + ": " + from), result);
+            assertTrue(result.contains(to + "\nLength"), result);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void testShortestPathTreeMatchesSinglePairQueries() {
+    ShortestPathTree tree = TextGraphAnalyzer.calcShortestPathsFrom(graph, "A");
+    assertEquals("a", tree.source());
+    for (String target : graph.getAllWords()) {
+      if (!target.equals("a")) {
+        assertEquals(TextGraphAnalyzer.calcShortestPath(graph, "A", target),
+            tree.describePathTo(target));
+      }
+    }
+    assertEquals(3, tree.distanceTo("D"));
+    assertEquals(List.of("a", "c", "d"), tree.pathTo("d"));
+    assertEquals("No y in the graph!", tree.describePathTo("Y"));
+    assertNull(TextGraphAnalyzer.calcShortestPathsFrom(graph, "X"));
+  }
+
+  @Test
+  void testShortestPathTreeUnreachable() {
+    TextGraphAnalyzer.DirectedGraph isolatedGraph = new TextGraphAnalyzer.DirectedGraph();
+    isolatedGraph.addEdge("A", "B");
+    isolatedGraph.addEdge("C", "D");
+
+    ShortestPathTree tree = TextGraphAnalyzer.calcShortestPathsFrom(isolatedGraph, "A");
+    assertEquals(-1, tree.distanceTo("d"));
+    assertTrue(tree.pathTo("d").isEmpty());
+    assertEquals("No path exists from a to d!", tree.describePathTo("d"));
+  }
+
+  @Test
+  void testBidirectionalPath() {
+    String result = TextGraphAnalyzer.calcShortestPath(graph, "A", "D",
+        PathSearchMode.BIDIRECTIONAL);
+    assertEquals("Path from a to d: a → c → d\nLength: 3", result);
+
+    TextGraphAnalyzer.DirectedGraph isolatedGraph = new TextGraphAnalyzer.DirectedGraph();
+    isolatedGraph.addEdge("A", "B");
+    isolatedGraph.addEdge("C", "D");
+    assertEquals("No path exists from a to d!", TextGraphAnalyzer.calcShortestPath(
+        isolatedGraph, "A", "D", PathSearchMode.BIDIRECTIONAL));
+  }
+
+  @Test
+  void testDistanceOracleMatchesCalcShortestPath(@TempDir Path tempDir) throws IOException {
+    TextGraphAnalyzer.DirectedGraph book =
+        TextGraphAnalyzer.createGraphFromFile("test/Easy Test.txt");
+    String oraclePath = tempDir.resolve("easy.oracle").toString();
+    TextGraphAnalyzer.precomputeShortestPaths(book, oraclePath);
+
+    DistanceOracle oracle = TextGraphAnalyzer.loadShortestPaths(oraclePath);
+    for (String from : book.getAllWords()) {
+      for (String to : book.getAllWords()) {
+        assertEquals(TextGraphAnalyzer.calcShortestPath(book, from, to),
+            oracle.describePath(from, to));
+      }
+    }
+    assertEquals("No x or y in the graph!", oracle.describePath("X", "Y"));
+  }
+
+  @Test
+  void testDistanceOracleRejectsCorruptFiles(@TempDir Path tempDir) throws IOException {
+    TextGraphAnalyzer.DirectedGraph book =
+        TextGraphAnalyzer.createGraphFromFile("test/Easy Test.txt");
+    CompactGraph compact = book.freeze();
+    Path oraclePath = tempDir.resolve("easy.oracle");
+    TextGraphAnalyzer.precomputeShortestPaths(book, oraclePath.toString());
+    byte[] original = Files.readAllBytes(oraclePath);
+
+    // 前驱矩阵中的错误在查询到该行时被发现
+    byte[] bytes = original.clone();
+    bytes[bytes.length - 1] ^= 1;
+    Files.write(oraclePath, bytes);
+    DistanceOracle oracle = TextGraphAnalyzer.loadShortestPaths(oraclePath.toString());
+    String last = compact.wordAt(compact.size() - 1);
+    UncheckedIOException e = assertThrows(UncheckedIOException.class,
+        () -> oracle.pathBetween(last, compact.wordAt(0)));
+    assertTrue(e.getMessage().contains("checksum"), e.getMessage());
+
+    // 图数据中的错误和截断的文件在加载时被拒绝
+    bytes = original.clone();
+    bytes[40] ^= 1;
+    Files.write(oraclePath, bytes);
+    IOException corrupt = assertThrows(IOException.class,
+        () -> TextGraphAnalyzer.loadShortestPaths(oraclePath.toString()));
+    assertTrue(corrupt.getMessage().contains("checksum"), corrupt.getMessage());
+    Files.write(oraclePath, Arrays.copyOf(original, original.length - 3));
+    assertThrows(IOException.class,
+        () -> TextGraphAnalyzer.loadShortestPaths(oraclePath.toString()));
+  }
+
+  @Test
+  void testDistanceOracleFallsBackToSearchWithoutMatrix(@TempDir Path tempDir)
+      throws IOException {
+    TextGraphAnalyzer.DirectedGraph book =
+        TextGraphAnalyzer.createGraphFromFile("test/Easy Test.txt");
+    Path oraclePath = tempDir.resolve("easy.oracle");
+    DistanceOracle.build(book.freeze(), oraclePath, 0);
+
+    DistanceOracle oracle = TextGraphAnalyzer.loadShortestPaths(oraclePath.toString());
+    for (String from : book.getAllWords()) {
+      for (String to : book.getAllWords()) {
+        // 等长路径可能有多条，只比较长度
+        String expected = TextGraphAnalyzer.calcShortestPath(book, from, to);
+        String actual = oracle.describePath(from, to);
+        assertEquals(expected.substring(expected.lastIndexOf('\n') + 1),
+            actual.substring(actual.lastIndexOf('\n') + 1), from + " -> " + to);
+      }
+    }
+  }
+
+  @Test
+  void testLandmarkSearchSettlesFewerNodes() throws IOException {
+    TextGraphAnalyzer.DirectedGraph book =
+        TextGraphAnalyzer.createGraphFromFile("test/Cursed Be The Treasure.txt");
+    CompactGraph compact = book.freeze();
+    ShortestPathEngine engine = ShortestPathEngine.of(compact);
+
+    long dijkstraSettled = 0;
+    long landmarkSettled = 0;
+    Random random = new Random(42);
+    for (int i = 0; i < 200; i++) {
+      int source = random.nextInt(compact.size());
+      int target = random.nextInt(compact.size());
+
+      ShortestPathEngine.Path expected = engine.shortestPath(source, target);
+      dijkstraSettled += engine.lastSettledCount();
+      ShortestPathEngine.Path actual = engine.landmarkPath(source, target);
+      landmarkSettled += engine.lastSettledCount();
+
+      if (expected == null) {
+        assertNull(actual);
+      } else {
+        assertEquals(expected.length, actual.length);
+      }
+    }
+    assertTrue(landmarkSettled < dijkstraSettled,
+        landmarkSettled + " settled with landmarks, " + dijkstraSettled + " without");
+  }
 }
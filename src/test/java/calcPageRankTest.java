@@ -0,0 +1,159 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class calcPageRankTest {
+
+  TextGraphAnalyzer.DirectedGraph graph;
+
+  @BeforeEach
+  void setUp() {
+    graph = new TextGraphAnalyzer.DirectedGraph();
+    String text = "A B C D A C D B E";
+    String[] words = text.split(" ");
+    for (int i = 0; i < words.length - 1; i++) {
+      graph.addEdge(words[i], words[i + 1]);
+    }
+  }
+
+  @Test
+  void testNonexistentWord() {
+    assertEquals(-1.0, TextGraphAnalyzer.calcPageRank(graph, "X"));
+  }
+
+  @Test
+  void testAllRanksSumToOne() {
+    PageRankResult result = TextGraphAnalyzer.calcAllPageRanks(graph);
+    double sum = 0;
+    for (double rank : result.asMap().values()) {
+      sum += rank;
+    }
+    assertEquals(1.0, sum, 1e-9);
+    assertEquals(graph.size(), result.asMap().size());
+  }
+
+  @Test
+  void testConvergesBeforeIterationLimit() {
+    PageRankResult result = TextGraphAnalyzer.calcAllPageRanks(graph, 1e-6);
+    assertTrue(result.converged());
+    assertTrue(result.iterations() < 500);
+  }
+
+  @Test
+  void testSingleWordMatchesAllRanks() {
+    PageRankResult result = TextGraphAnalyzer.calcAllPageRanks(graph);
+    for (String word : graph.getAllWords()) {
+      assertEquals(result.get(word), TextGraphAnalyzer.calcPageRank(graph, word), 1e-12);
+    }
+    assertEquals(-1.0, result.get("x"));
+  }
+
+  // 不做收敛判断、固定迭代 500 次的朴素实现，作为参照
+  static Map<String, Double> referenceRanks(WordGraph graph) {
+    int n = graph.size();
+    Map<String, Double> rank = new HashMap<>();
+    for (String w : graph.getAllWords()) {
+      rank.put(w, 1.0 / n);
+    }
+    for (int i = 0; i < 500; i++) {
+      double dangling = 0;
+      for (String w : graph.getAllWords()) {
+        if (graph.getNeighbors(w).isEmpty()) {
+          dangling += 0.85 * rank.get(w) / n;
+        }
+      }
+      Map<String, Double> newRank = new HashMap<>();
+      for (String w : graph.getAllWords()) {
+        newRank.put(w, 0.15 / n + dangling);
+      }
+      for (String w : graph.getAllWords()) {
+        Map<String, Integer> out = graph.getNeighbors(w);
+        int total = out.values().stream().mapToInt(Integer::intValue).sum();
+        for (Map.Entry<String, Integer> e : out.entrySet()) {
+          newRank.merge(e.getKey(), 0.85 * rank.get(w) * e.getValue() / total, Double::sum);
+        }
+      }
+      rank = newRank;
+    }
+    return rank;
+  }
+
+  @Test
+  void testMatchesReferenceOnLargeGraph() throws IOException {
+    TextGraphAnalyzer.DirectedGraph book =
+        TextGraphAnalyzer.createGraphFromFile("test/Cursed Be The Treasure.txt");
+    Map<String, Double> expected = referenceRanks(book);
+    PageRankResult result = TextGraphAnalyzer.calcAllPageRanks(book);
+    for (Map.Entry<String, Double> entry : expected.entrySet()) {
+      assertEquals(entry.getValue(), result.get(entry.getKey()), 1e-9, entry.getKey());
+    }
+  }
+
+  @Test
+  void testResultCachedUntilGraphChanges() {
+    PageRankResult first = TextGraphAnalyzer.calcAllPageRanks(graph);
+    assertSame(first, TextGraphAnalyzer.calcAllPageRanks(graph));
+
+    long version = graph.version();
+    graph.addEdge("E", "A");
+    assertTrue(graph.version() > version);
+
+    PageRankResult second = TextGraphAnalyzer.calcAllPageRanks(graph);
+    assertNotSame(first, second);
+    assertNotEquals(first.get("e"), second.get("e"));
+  }
+
+  @Test
+  void testSlowAnalysisDoesNotBlockOtherQueries() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<String> slow = CompletableFuture.supplyAsync(
+        () -> graph.cachedAnalysis("slow", () -> {
+          started.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return "done";
+        }));
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+
+    // 另一个分析在慢计算进行时仍能完成并被缓存
+    PageRankResult result = CompletableFuture.supplyAsync(
+        () -> TextGraphAnalyzer.calcAllPageRanks(graph)).get(10, TimeUnit.SECONDS);
+    assertSame(result, TextGraphAnalyzer.calcAllPageRanks(graph));
+
+    release.countDown();
+    assertEquals("done", slow.get(10, TimeUnit.SECONDS));
+    assertEquals("done", graph.cachedAnalysis("slow", () -> "again"));
+  }
+
+  @Test
+  void testWarmStartAfterAppend() throws IOException {
+    TextGraphAnalyzer.DirectedGraph book =
+        TextGraphAnalyzer.createGraphFromFile("test/Cursed Be The Treasure.txt");
+    PageRankResult cold = TextGraphAnalyzer.calcAllPageRanks(book);
+
+    // 追加几条边后，以之前的 rank 向量为起点重新迭代
+    book.addEdge("treasure", "zyzzyva");
+    book.addEdge("zyzzyva", "gold");
+    book.addEdge("the", "treasure", 5);
+    PageRankResult warm = TextGraphAnalyzer.calcAllPageRanks(book);
+    assertTrue(warm.converged());
+    assertTrue(warm.iterations() < cold.iterations(),
+        warm.iterations() + " >= " + cold.iterations());
+
+    Map<String, Double> expected = referenceRanks(book);
+    for (Map.Entry<String, Double> entry : expected.entrySet()) {
+      assertEquals(entry.getValue(), warm.get(entry.getKey()), 1e-9, entry.getKey());
+    }
+  }
+}
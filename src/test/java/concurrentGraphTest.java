@@ -0,0 +1,120 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class concurrentGraphTest {
+
+  static final String EASY = "test/Easy Test.txt";
+  static final String BOOK = "test/Cursed Be The Treasure.txt";
+
+  @Test
+  void testConcurrentWritersAndReaders() throws Exception {
+    TextGraphAnalyzer.DirectedGraph reference = TextGraphAnalyzer.createGraphFromFile(BOOK);
+    ConcurrentWordGraph graph = new ConcurrentWordGraph();
+    int writers = 8;
+
+    ExecutorService pool = Executors.newFixedThreadPool(writers + 1);
+    AtomicBoolean done = new AtomicBoolean();
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < writers; i++) {
+      futures.add(pool.submit(() -> {
+        for (String from : reference.getAllWords()) {
+          reference.getNeighbors(from).forEach((to, weight) -> graph.addEdge(from, to, weight));
+        }
+      }));
+    }
+
+    // 写入的同时冻结并查询，每个快照都必须自洽
+    Future<?> reader = pool.submit(() -> {
+      while (!done.get()) {
+        CompactGraph snapshot = graph.freeze();
+        for (int e = 0; e < snapshot.edgeCount(); e++) {
+          assertTrue(snapshot.target(e) < snapshot.size());
+        }
+        TextGraphAnalyzer.queryBridgeWords(graph, "the", "of");
+      }
+    });
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    done.set(true);
+    reader.get();
+    pool.shutdown();
+    assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+    assertEquals(reference.getAllWords(), graph.getAllWords());
+    for (String word : reference.getAllWords()) {
+      Map<String, Integer> expected = new HashMap<>();
+      reference.getNeighbors(word).forEach((to, weight) -> expected.put(to, weight * writers));
+      assertEquals(expected, graph.getNeighbors(word), word);
+    }
+  }
+
+  @Test
+  void testMultipleFiles() throws IOException {
+    ConcurrentWordGraph graph = TextGraphAnalyzer.createGraphFromFiles(List.of(EASY, BOOK));
+    TextGraphAnalyzer.DirectedGraph easy = TextGraphAnalyzer.createGraphFromFile(EASY);
+    TextGraphAnalyzer.DirectedGraph book = TextGraphAnalyzer.createGraphFromFile(BOOK);
+
+    for (String word : graph.getAllWords()) {
+      for (String to : graph.getNeighbors(word).keySet()) {
+        int expected = easy.getNeighbors(word).getOrDefault(to, 0)
+            + book.getNeighbors(word).getOrDefault(to, 0);
+        assertEquals(expected, graph.getNeighbors(word).get(to), word + " -> " + to);
+      }
+    }
+    assertEquals(TextGraphAnalyzer.calcShortestPath(graph.freeze(), "the", "treasure"),
+        TextGraphAnalyzer.calcShortestPath(graph, "the", "treasure"));
+  }
+
+  @Test
+  void testNeighborViewAndFreeze() {
+    ConcurrentWordGraph graph = new ConcurrentWordGraph();
+    graph.addEdge("a", "b");
+    Map<String, Integer> view = graph.getNeighbors("A");
+    assertEquals(Map.of("b", 1), view);
+
+    // 视图反映之后的写入，并且不能被修改
+    graph.addEdge("a", "b", 2);
+    graph.addEdge("a", "c");
+    assertEquals(Map.of("b", 3, "c", 1), view);
+    assertThrows(UnsupportedOperationException.class, () -> view.put("d", 1));
+
+    CompactGraph compact = graph.freeze();
+    assertEquals(3, compact.size());
+    assertEquals(2, compact.edgeCount());
+    assertEquals(view, compact.getNeighbors("a"));
+    assertTrue(compact.getNeighbors("c").isEmpty());
+    assertSame(compact, graph.freeze());
+  }
+
+  @Test
+  void testEveryWriteInvalidatesFreeze() {
+    ConcurrentWordGraph graph = new ConcurrentWordGraph();
+    graph.addEdge("a", "b");
+    long version = graph.version();
+    CompactGraph before = graph.freeze();
+
+    // 任何一次写入都会让下一次查询重新冻结，新的副本包含这次写入
+    graph.addEdge("a", "b");
+    assertEquals(version + 1, graph.version());
+    CompactGraph after = graph.freeze();
+    assertNotSame(before, after);
+    assertEquals(Map.of("b", 1), before.getNeighbors("a"));
+    assertEquals(Map.of("b", 2), after.getNeighbors("a"));
+
+    graph.addEdge("b", "c");
+    assertEquals(version + 3, graph.version());
+    assertEquals(Map.of("c", 1), graph.freeze().getNeighbors("b"));
+  }
+}
@@ -0,0 +1,107 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class createGraphFromFileTest {
+
+  // 旧版基于正则的建图方式，作为流式分词结果的参照
+  static TextGraphAnalyzer.DirectedGraph buildWithRegex(String filePath) throws IOException {
+    String content = Files.readString(Paths.get(filePath));
+    content = content.replaceAll("[\\r\\n]", " ");
+    content = content.replaceAll("[\\p{Punct}]", " ");
+
+    Matcher matcher = Pattern.compile("[a-zA-Z]+").matcher(content);
+    List<String> words = new ArrayList<>();
+    while (matcher.find()) {
+      words.add(matcher.group());
+    }
+
+    TextGraphAnalyzer.DirectedGraph graph = new TextGraphAnalyzer.DirectedGraph();
+    for (int i = 0; i < words.size() - 1; i++) {
+      graph.addEdge(words.get(i), words.get(i + 1));
+    }
+    return graph;
+  }
+
+  static void assertSameGraph(TextGraphAnalyzer.DirectedGraph expected,
+      TextGraphAnalyzer.DirectedGraph actual) {
+    assertEquals(expected.getAllWords(), actual.getAllWords());
+    for (String word : expected.getAllWords()) {
+      assertEquals(expected.getNeighbors(word), actual.getNeighbors(word), word);
+    }
+  }
+
+  @Test
+  void testEasyFileMatchesRegex() throws IOException {
+    String path = "test/Easy Test.txt";
+    assertSameGraph(buildWithRegex(path), TextGraphAnalyzer.createGraphFromFile(path));
+  }
+
+  @Test
+  void testLargeFileMatchesRegex() throws IOException {
+    // 文件大于流式缓冲区，会覆盖单词跨越缓冲区边界的情况
+    String path = "test/Cursed Be The Treasure.txt";
+    assertSameGraph(buildWithRegex(path), TextGraphAnalyzer.createGraphFromFile(path));
+  }
+
+  @Test
+  void testParallelMatchesSequential() throws IOException {
+    String path = "test/Cursed Be The Treasure.txt";
+    // 使用很小的块，让大量相邻单词对跨越块边界
+    TextGraphAnalyzer.DirectedGraph parallel = ParallelGraphBuilder.build(
+        Paths.get(path), ForkJoinPool.commonPool(), 1024);
+    assertSameGraph(TextGraphAnalyzer.createGraphFromFile(path), parallel);
+  }
+
+  @Test
+  void testParallelSmallFile() throws IOException {
+    String path = "test/Easy Test.txt";
+    assertSameGraph(TextGraphAnalyzer.createGraphFromFile(path),
+        TextGraphAnalyzer.createGraphFromFileParallel(path));
+  }
+
+  @Test
+  void testIncrementalAppends(@TempDir Path dir) throws IOException {
+    byte[] content = Files.readAllBytes(Paths.get("test/Cursed Be The Treasure.txt"));
+    Path file = dir.resolve("log.txt");
+    Files.write(file, new byte[0]);
+    IncrementalGraphLoader loader =
+        TextGraphAnalyzer.createGraphFromFileIncremental(file.toString());
+    assertEquals(0, loader.graph().size());
+
+    // 按不规则的大小追加，很多追加点会落在单词中间
+    int position = 0;
+    for (int step = 1; position < content.length; step = step * 7 % 9973 + 1) {
+      int length = Math.min(step, content.length - position);
+      Files.write(file, Arrays.copyOfRange(content, position, position + length),
+          StandardOpenOption.APPEND);
+      position += length;
+
+      long version = loader.graph().version();
+      PageRankResult ranks = TextGraphAnalyzer.calcAllPageRanks(loader.graph());
+      // 有新的边加入时，缓存的 PageRank 会失效
+      loader.refresh();
+      if (loader.graph().version() != version) {
+        assertNotSame(ranks, TextGraphAnalyzer.calcAllPageRanks(loader.graph()));
+      }
+    }
+    assertTrue(loader.offset() <= content.length);
+
+    Files.writeString(file, "\n", StandardOpenOption.APPEND);
+    loader.refresh();
+    assertEquals(content.length + 1, loader.offset());
+    assertSameGraph(TextGraphAnalyzer.createGraphFromFile(file.toString()), loader.graph());
+  }
+}
@@ -0,0 +1,117 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class createKGramGraphTest {
+
+  static final String BOOK = "test/Cursed Be The Treasure.txt";
+
+  @Test
+  void testOrderTwoMatchesBigramGraph() throws IOException {
+    TextGraphAnalyzer.DirectedGraph expected = TextGraphAnalyzer.createGraphFromFile(BOOK);
+    KGramGraph actual = TextGraphAnalyzer.createKGramGraphFromFile(BOOK, 2);
+
+    assertEquals(2, actual.order());
+    assertEquals(expected.getAllWords(), actual.getAllWords());
+    for (String word : expected.getAllWords()) {
+      assertEquals(expected.getNeighbors(word), actual.getNeighbors(word), word);
+    }
+  }
+
+  @Test
+  void testTrigramContexts(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("text.txt");
+    Files.writeString(file, "the old man saw the old dog and the old man ran");
+    KGramGraph graph = TextGraphAnalyzer.createKGramGraphFromFile(file.toString(), 3);
+
+    assertTrue(graph.containsWord("The Old"));
+    assertFalse(graph.containsWord("old"));
+    assertEquals(Map.of("old man", 2, "old dog", 1), graph.getNeighbors("the old"));
+    assertEquals(graph.indexOf("old man"), graph.freeze().indexOf("old man"));
+    assertEquals("old man", graph.contextAt(graph.indexOf("old man")));
+    assertThrows(IllegalArgumentException.class,
+        () -> TextGraphAnalyzer.createKGramGraphFromFile(file.toString(), 1));
+
+    // 现有的图操作都可以直接用于 k 元语法图
+    assertEquals("Path from the old to man ran: the old → old man → man ran\nLength: 3",
+        TextGraphAnalyzer.calcShortestPath(graph, "the old", "man ran"));
+    assertEquals("The bridge words from old dog to and the are: dog and.",
+        TextGraphAnalyzer.queryBridgeWords(graph, "old dog", "and the"));
+    double sum = 0;
+    for (String context : graph.getAllWords()) {
+      sum += TextGraphAnalyzer.calcPageRank(graph, context);
+    }
+    assertEquals(1.0, sum, 1e-9);
+    assertTrue(TextGraphAnalyzer.randomWalk(graph, new SplittableRandom(3)).length() > 0);
+  }
+
+  @Test
+  void testGeneratedTextIsRealWordSequence(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("cycle.txt");
+    String source = "the old man saw the old dog saw the old man saw the old";
+    Files.writeString(file, source);
+    KGramGraph graph = TextGraphAnalyzer.createKGramGraphFromFile(file.toString(), 3);
+    Set<String> trigrams = new HashSet<>();
+    String[] words = source.split(" ");
+    for (int i = 0; i + 2 < words.length; i++) {
+      trigrams.add(words[i] + " " + words[i + 1] + " " + words[i + 2]);
+    }
+
+    // 第一个上下文完整输出，之后每一步只输出新增的单词，相邻三个单词都是原文中的三元组
+    String text =
+        TextGraphAnalyzer.generateMarkovText(graph, "the old", 30, 1.0, 0, new SplittableRandom(7));
+    assertTrue(text.startsWith("the old "), text);
+    assertTrueTrigrams(trigrams, text.split(" "));
+    assertEquals(31, text.split(" ").length);
+
+    List<String> walks = new ArrayList<>();
+    TextGraphAnalyzer.randomWalks(graph, 50, 11, walk -> walks.add(String.join(" ", walk)));
+    assertEquals(50, walks.size());
+    for (String walk : walks) {
+      assertTrueTrigrams(trigrams, walk.split(" "));
+    }
+  }
+
+  static void assertTrueTrigrams(Set<String> trigrams, String[] words) {
+    for (int i = 0; i + 2 < words.length; i++) {
+      String trigram = words[i] + " " + words[i + 1] + " " + words[i + 2];
+      assertTrue(trigrams.contains(trigram), trigram);
+    }
+  }
+
+  @Test
+  void testShortTexts(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("one.txt");
+    Files.writeString(file, "Hello");
+    TextGraphAnalyzer.DirectedGraph bigrams = TextGraphAnalyzer.createGraphFromFile(file.toString());
+    KGramGraph pairs = TextGraphAnalyzer.createKGramGraphFromFile(file.toString(), 2);
+    assertEquals(bigrams.getAllWords(), pairs.getAllWords());
+    assertEquals(0, pairs.size());
+
+    // 少于 k 个单词的文本不构成任何 k 元组
+    Files.writeString(file, "Hello world");
+    assertEquals(0, TextGraphAnalyzer.createKGramGraphFromFile(file.toString(), 3).size());
+    assertEquals(2, TextGraphAnalyzer.createKGramGraphFromFile(file.toString(), 2).size());
+  }
+
+  @Test
+  void testRepeatedTransitionsAreCounted(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("loop.txt");
+    Files.writeString(file, "a b ".repeat(5000) + "a c");
+    KGramGraph graph = TextGraphAnalyzer.createKGramGraphFromFile(file.toString(), 2);
+
+    assertEquals(Map.of("b", 5000, "c", 1), graph.getNeighbors("a"));
+    assertEquals(Map.of("a", 5000), graph.getNeighbors("b"));
+    assertEquals(3, graph.freeze().edgeCount());
+  }
+}
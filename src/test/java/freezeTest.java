@@ -0,0 +1,196 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class freezeTest {
+
+  TextGraphAnalyzer.DirectedGraph graph;
+  CompactGraph compact;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    graph = TextGraphAnalyzer.createGraphFromFile("test/Cursed Be The Treasure.txt");
+    compact = graph.freeze();
+  }
+
+  @Test
+  void testSameWordsAndEdges() {
+    assertEquals(graph.size(), compact.size());
+    assertEquals(graph.getAllWords(), compact.getAllWords());
+    for (String word : graph.getAllWords()) {
+      assertEquals(graph.getNeighbors(word), compact.getNeighbors(word), word);
+    }
+  }
+
+  @Test
+  void testIdLookup() {
+    assertEquals(-1, compact.indexOf("nosuchword"));
+    assertFalse(compact.containsWord("nosuchword"));
+    assertTrue(compact.getNeighbors("nosuchword").isEmpty());
+
+    int the = compact.indexOf("the");
+    assertEquals("the", compact.wordAt(the));
+    assertTrue(compact.containsWord("The"));
+    for (int e = compact.edgeStart(the); e < compact.edgeEnd(the); e++) {
+      assertEquals(e, compact.findEdge(the, compact.target(e)));
+      assertEquals(graph.getNeighbors("the").get(compact.wordAt(compact.target(e))),
+          compact.weight(e));
+    }
+  }
+
+  @Test
+  void testAlgorithmsRunOnCompactGraph() {
+    // 等长路径可能有多条，只比较长度
+    String expected = TextGraphAnalyzer.calcShortestPath(graph, "treasure", "gold");
+    String actual = TextGraphAnalyzer.calcShortestPath(compact, "treasure", "gold");
+    assertEquals(expected.substring(expected.indexOf("\nLength: ")),
+        actual.substring(actual.indexOf("\nLength: ")));
+    assertEquals(TextGraphAnalyzer.calcPageRank(graph, "the"),
+        TextGraphAnalyzer.calcPageRank(compact, "the"), 1e-9);
+  }
+
+  @Test
+  void testBridgeWordsMatchNeighborScan() {
+    String[] words = {"the", "of", "and", "treasure", "gold", "a"};
+    for (String word1 : words) {
+      for (String word2 : words) {
+        Set<String> expected = new HashSet<>();
+        for (String candidate : graph.getNeighbors(word1).keySet()) {
+          if (graph.getNeighbors(candidate).containsKey(word2)) {
+            expected.add(candidate);
+          }
+        }
+        Set<String> actual = new HashSet<>();
+        for (int id : compact.bridgeWords(compact.indexOf(word1), compact.indexOf(word2))) {
+          actual.add(compact.wordAt(id));
+        }
+        assertEquals(expected, actual, word1 + " -> " + word2);
+      }
+    }
+    assertTrue(TextGraphAnalyzer.queryBridgeWords(compact, "of", "the")
+        .startsWith("The bridge words from of to the are: "));
+
+    // 冻结前后的输出完全相同，桥接词按字母顺序排列
+    for (String word1 : words) {
+      for (String word2 : words) {
+        assertEquals(TextGraphAnalyzer.queryBridgeWords(graph, word1, word2),
+            TextGraphAnalyzer.queryBridgeWords(compact, word1, word2));
+      }
+    }
+  }
+
+  @Test
+  void testInEdgesMatchOutEdges() {
+    for (String word : new String[] {"the", "treasure", "gold"}) {
+      int id = compact.indexOf(word);
+      int expected = 0;
+      for (String from : graph.getAllWords()) {
+        if (graph.getNeighbors(from).containsKey(word)) {
+          expected++;
+        }
+      }
+      assertEquals(expected, compact.inEdgeEnd(id) - compact.inEdgeStart(id), word);
+      for (int e = compact.inEdgeStart(id); e < compact.inEdgeEnd(id); e++) {
+        assertEquals(compact.inWeight(e),
+            graph.getNeighbors(compact.wordAt(compact.source(e))).get(word), word);
+      }
+    }
+  }
+
+  @Test
+  void testPredecessorsMatchOutEdgeScan() {
+    for (String word : new String[] {"the", "treasure", "gold"}) {
+      Map<String, Integer> expected = new HashMap<>();
+      for (String from : graph.getAllWords()) {
+        Integer weight = graph.getNeighbors(from).get(word);
+        if (weight != null) {
+          expected.put(from, weight);
+        }
+      }
+      assertEquals(expected, graph.getPredecessors(word), word);
+      assertEquals(expected, compact.getPredecessors(word.toUpperCase()), word);
+    }
+    assertTrue(graph.getPredecessors("nosuchword").isEmpty());
+
+    // 快照的前驱不受之后的修改影响，本图的前驱反映修改
+    WordGraph snapshot = graph.snapshot();
+    int before = graph.getPredecessors("the").getOrDefault("zyzzyva", 0);
+    graph.addEdge("Zyzzyva", "The", 2);
+    assertEquals(before + 2, graph.getPredecessors("THE").get("zyzzyva"));
+    assertTrue(graph.getPredecessors("zyzzyva").isEmpty());
+    assertFalse(snapshot.getPredecessors("the").containsKey("zyzzyva"));
+    assertThrows(UnsupportedOperationException.class,
+        () -> graph.getPredecessors("the").put("x", 1));
+  }
+
+  @Test
+  void testSnapshotIsUnaffectedByLaterEdits() {
+    WordGraph snapshot = graph.snapshot();
+    int theEdges = graph.getNeighbors("the").size();
+    int oldWeight = graph.getNeighbors("the").getOrDefault("treasure", 0);
+    Double rank = TextGraphAnalyzer.calcPageRank(snapshot, "treasure");
+
+    graph.addEdge("the", "treasure", 5);
+    graph.addEdge("the", "zyzzyva");
+    graph.addWord("quux");
+    WordGraph second = graph.snapshot();
+    graph.addEdge("quux", "the");
+
+    assertEquals(compact.size(), snapshot.size());
+    assertFalse(snapshot.containsWord("zyzzyva"));
+    assertEquals(theEdges, snapshot.getNeighbors("the").size());
+    assertEquals(oldWeight, snapshot.getNeighbors("The").get("treasure"));
+    assertThrows(UnsupportedOperationException.class,
+        () -> snapshot.getNeighbors("the").put("x", 1));
+    assertEquals(rank, TextGraphAnalyzer.calcPageRank(snapshot, "treasure"));
+    assertEquals(compact.edgeCount(), snapshot.freeze().edgeCount());
+
+    assertEquals(oldWeight + 5, second.getNeighbors("the").get("treasure"));
+    assertTrue(second.containsWord("quux"));
+    assertTrue(second.getNeighbors("quux").isEmpty());
+    assertEquals(1, graph.getNeighbors("quux").get("the"));
+    assertEquals(graph.size(), second.size());
+  }
+
+  @Test
+  void testConcurrentQueriesOnSnapshot() throws Exception {
+    WordGraph snapshot = graph.snapshot();
+    String path = TextGraphAnalyzer.calcShortestPath(compact, "treasure", "gold");
+    Double rank = TextGraphAnalyzer.calcPageRank(compact, "treasure");
+
+    // 多个线程同时在快照上查询，同时本图继续被修改
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      futures.add(pool.submit(() -> {
+        assertEquals(path.split(" -> ").length,
+            TextGraphAnalyzer.calcShortestPath(snapshot, "treasure", "gold").split(" -> ").length);
+        assertEquals(rank, TextGraphAnalyzer.calcPageRank(snapshot, "treasure"), 1e-9);
+        assertFalse(TextGraphAnalyzer.randomWalk(snapshot).isEmpty());
+      }));
+    }
+    for (int i = 0; i < 1000; i++) {
+      graph.addEdge("treasure", "w" + i);
+      if (i % 100 == 0) {
+        graph.snapshot();
+      }
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    pool.shutdown();
+    assertEquals(compact.size(), snapshot.size());
+    assertEquals(compact.size() + 1000, graph.size());
+  }
+}
@@ -0,0 +1,133 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class generateNewTextTest {
+
+  TextGraphAnalyzer.DirectedGraph graph;
+
+  @BeforeEach
+  void setUp() {
+    graph = new TextGraphAnalyzer.DirectedGraph();
+    String text = "A B C D A C D B";
+    String[] words = text.split(" ");
+    for (int i = 0; i < words.length - 1; i++) {
+      graph.addEdge(words[i], words[i + 1]);
+    }
+  }
+
+  @Test
+  void testSingleBridgeWord() {
+    assertEquals("B c D", TextGraphAnalyzer.generateNewText(graph, "B D"));
+    assertEquals(List.of("B c D", "x", "B c D X B"),
+        TextGraphAnalyzer.generateNewTexts(graph, List.of("B D", "x", "B D, X B"), 1));
+  }
+
+  @Test
+  void testBatchIsReproducible() throws IOException {
+    TextGraphAnalyzer.DirectedGraph book =
+        TextGraphAnalyzer.createGraphFromFile("test/Cursed Be The Treasure.txt");
+    List<String> texts = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      texts.add("Seek out the treasure and the gold of " + (i % 2 == 0 ? "the" : "a") + " world");
+    }
+
+    List<String> first = TextGraphAnalyzer.generateNewTexts(book, texts, 42);
+    assertEquals(first, TextGraphAnalyzer.generateNewTexts(book, texts.stream(), 42));
+    assertEquals(texts.size(), first.size());
+
+    // 每段文本只是在原来的单词之间多了随机选择的桥接词
+    for (int i = 0; i < texts.size(); i++) {
+      String actual = first.get(i);
+      assertTrue(actual.startsWith("Seek ") && actual.endsWith(" world"), actual);
+      assertTrue(actual.split(" ").length >= texts.get(i).split(" ").length, actual);
+    }
+  }
+
+  @Test
+  void testBatchMatchesSingleText() throws IOException {
+    TextGraphAnalyzer.DirectedGraph book =
+        TextGraphAnalyzer.createGraphFromFile("test/Cursed Be The Treasure.txt");
+    List<String> texts = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      texts.add("the of the and of the to the in " + (i % 2 == 0 ? "a" : "his") + " and of");
+    }
+
+    // 批量生成的每段文本与用同一个派生种子单独生成的结果相同
+    long seed = 2024;
+    List<String> batch = TextGraphAnalyzer.generateNewTexts(book, texts, seed);
+    long[] seeds = new SplittableRandom(seed).longs(texts.size()).toArray();
+    for (int i = 0; i < texts.size(); i++) {
+      assertEquals(
+          TextGraphAnalyzer.generateNewText(book, texts.get(i), new SplittableRandom(seeds[i])),
+          batch.get(i), texts.get(i));
+    }
+  }
+
+  @Test
+  void testSeededGeneratorIsReproducible() {
+    // a 到 c 有两个桥接词 b 和 d，同一个种子每次选择相同
+    String text = "A C A C A C A C A C A C";
+    assertEquals(TextGraphAnalyzer.generateNewText(graph, text, new SplittableRandom(7)),
+        TextGraphAnalyzer.generateNewText(graph, text, new SplittableRandom(7)));
+  }
+
+  @Test
+  void testMarkovTextFollowsEdges() throws IOException {
+    TextGraphAnalyzer.DirectedGraph book =
+        TextGraphAnalyzer.createGraphFromFile("test/Cursed Be The Treasure.txt");
+    String text = TextGraphAnalyzer.generateMarkovText(book, "The", 500, 1.0, 0,
+        new SplittableRandom(11));
+    String[] words = text.split(" ");
+    assertEquals(500, words.length);
+    assertEquals("the", words[0]);
+    for (int i = 1; i < words.length; i++) {
+      // 没有后继时会从随机单词重新开始
+      assertTrue(book.getNeighbors(words[i - 1]).containsKey(words[i])
+          || book.getNeighbors(words[i - 1]).isEmpty(), words[i - 1] + " " + words[i]);
+    }
+
+    StringBuilder streamed = new StringBuilder();
+    TextGraphAnalyzer.generateMarkovText(book, "the", 500, 1.0, 0, new SplittableRandom(11),
+        streamed);
+    assertEquals(text, streamed.toString());
+  }
+
+  @Test
+  void testMarkovTopK() {
+    TextGraphAnalyzer.DirectedGraph weighted = new TextGraphAnalyzer.DirectedGraph();
+    weighted.addEdge("x", "a", 3);
+    weighted.addEdge("x", "b", 1);
+    weighted.addEdge("a", "x", 1);
+    weighted.addEdge("b", "x", 1);
+
+    // 只保留权重最大的后继时，结果是确定的
+    assertEquals("x a x a x",
+        TextGraphAnalyzer.generateMarkovText(weighted, "x", 5, 2.0, 1, new SplittableRandom(1)));
+    assertEquals("No y in the graph!",
+        TextGraphAnalyzer.generateMarkovText(weighted, "Y", 5, 1.0, 0, new SplittableRandom(1)));
+    assertThrows(IllegalArgumentException.class,
+        () -> TextGraphAnalyzer.generateMarkovText(weighted, "x", 5, 0, 0,
+            new SplittableRandom(1)));
+  }
+
+  @Test
+  void testMarkovGeneratorsPerGraphAreBounded() {
+    CompactGraph compact = graph.freeze();
+    MarkovTextGenerator generator = MarkovTextGenerator.of(compact, 1.0, 2);
+    assertSame(generator, MarkovTextGenerator.of(compact, 1.0, 2));
+
+    // 不可变的图永远不会失效，不同参数的生成器只保留最近使用的几个
+    for (int i = 1; i <= 16; i++) {
+      MarkovTextGenerator.of(compact, 1.0 + i, 2);
+    }
+    assertNotSame(generator, MarkovTextGenerator.of(compact, 1.0, 2));
+    MarkovTextGenerator recent = MarkovTextGenerator.of(compact, 17.0, 2);
+    assertSame(recent, MarkovTextGenerator.of(compact, 17.0, 2));
+  }
+}
@@ -0,0 +1,88 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class loadGraphTest {
+
+  static void assertSameGraph(WordGraph expected, WordGraph actual) {
+    assertEquals(expected.getAllWords(), actual.getAllWords());
+    for (String word : expected.getAllWords()) {
+      assertEquals(expected.getNeighbors(word), actual.getNeighbors(word), word);
+    }
+  }
+
+  @Test
+  void testSnapshotIsReusedUntilSourceChanges(@TempDir Path dir) throws IOException {
+    Path source = dir.resolve("book.txt");
+    Files.copy(Paths.get("test/Cursed Be The Treasure.txt"), source);
+    Path cache = dir.resolve("cache");
+    Path snapshot = TextGraphAnalyzer.snapshotFileFor(source, cache);
+
+    CompactGraph built = TextGraphAnalyzer.loadGraph(source.toString(), cache);
+    assertTrue(Files.exists(snapshot));
+    assertEquals(cache, snapshot.getParent());
+    // 源文件所在的目录中不会多出文件
+    try (Stream<Path> files = Files.list(dir)) {
+      assertEquals(Set.of(source, cache), files.collect(Collectors.toSet()));
+    }
+    assertSameGraph(TextGraphAnalyzer.createGraphFromFile(source.toString()), built);
+
+    // 源文件未变化时直接加载快照
+    FileTime written = Files.getLastModifiedTime(snapshot);
+    CompactGraph loaded = TextGraphAnalyzer.loadGraph(source.toString(), cache);
+    assertEquals(written, Files.getLastModifiedTime(snapshot));
+    assertSameGraph(built, loaded);
+    assertEquals(built.indexOf("treasure"), loaded.indexOf("treasure"));
+
+    // 源文件改变后重新建图
+    Files.writeString(source, " zyzzyva treasure", StandardOpenOption.APPEND);
+    CompactGraph rebuilt = TextGraphAnalyzer.loadGraph(source.toString(), cache);
+    assertTrue(rebuilt.getNeighbors("zyzzyva").containsKey("treasure"));
+  }
+
+  @Test
+  void testSnapshotOfChangedSourceIsStale(@TempDir Path dir) throws IOException {
+    Path source = dir.resolve("easy.txt");
+    Files.copy(Paths.get("test/Easy Test.txt"), source);
+    Path cache = dir.resolve("cache");
+    Files.createDirectories(cache);
+    Path snapshot = TextGraphAnalyzer.snapshotFileFor(source, cache);
+
+    // 模拟建图期间源文件被修改：快照记录的是建图之前的源文件信息
+    GraphSnapshot.SourceStamp before = GraphSnapshot.SourceStamp.of(source);
+    CompactGraph graph = TextGraphAnalyzer.createGraphFromFile(source.toString()).freeze();
+    Files.writeString(source, " zyzzyva treasure", StandardOpenOption.APPEND);
+    GraphSnapshot.save(graph, snapshot, before);
+
+    assertTrue(GraphSnapshot.isFresh(snapshot, before));
+    assertFalse(GraphSnapshot.isFresh(snapshot, GraphSnapshot.SourceStamp.of(source)));
+    CompactGraph reloaded = TextGraphAnalyzer.loadGraph(source.toString(), cache);
+    assertTrue(reloaded.getNeighbors("zyzzyva").containsKey("treasure"));
+  }
+
+  @Test
+  void testCorruptSnapshotIsRejected(@TempDir Path dir) throws IOException {
+    TextGraphAnalyzer.DirectedGraph graph =
+        TextGraphAnalyzer.createGraphFromFile("test/Easy Test.txt");
+    Path snapshot = dir.resolve("easy.graph");
+    TextGraphAnalyzer.saveGraphSnapshot(graph, snapshot.toString());
+    assertSameGraph(graph, TextGraphAnalyzer.loadGraphSnapshot(snapshot.toString()));
+
+    byte[] bytes = Files.readAllBytes(snapshot);
+    bytes[bytes.length - 1] ^= 1;
+    Files.write(snapshot, bytes);
+    IOException e = assertThrows(IOException.class,
+        () -> TextGraphAnalyzer.loadGraphSnapshot(snapshot.toString()));
+    assertTrue(e.getMessage().contains("checksum"), e.getMessage());
+  }
+}
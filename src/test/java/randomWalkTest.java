@@ -0,0 +1,143 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class randomWalkTest {
+
+  TextGraphAnalyzer.DirectedGraph graph;
+
+  @BeforeEach
+  void setUp() {
+    graph = new TextGraphAnalyzer.DirectedGraph();
+    String text = "A B C D A C D B";
+    String[] words = text.split(" ");
+    for (int i = 0; i < words.length - 1; i++) {
+      graph.addEdge(words[i], words[i + 1]);
+    }
+  }
+
+  @Test
+  void testEmptyGraph() {
+    assertEquals("Graph is empty.",
+        TextGraphAnalyzer.randomWalk(new TextGraphAnalyzer.DirectedGraph()));
+  }
+
+  @Test
+  void testSeededWalkIsReproducible() {
+    for (long seed = 0; seed < 20; seed++) {
+      String walk = TextGraphAnalyzer.randomWalk(graph, new SplittableRandom(seed));
+      assertEquals(walk, TextGraphAnalyzer.randomWalk(graph, new SplittableRandom(seed)));
+
+      // 每一步都沿着图中的边
+      String[] steps = walk.replace(" (repeated edge)", "").split(" -> ");
+      for (int i = 1; i < steps.length; i++) {
+        assertTrue(graph.getNeighbors(steps[i - 1]).containsKey(steps[i]), walk);
+      }
+    }
+  }
+
+  @Test
+  void testBulkWalks(@TempDir Path dir) throws IOException {
+    TextGraphAnalyzer.DirectedGraph book =
+        TextGraphAnalyzer.createGraphFromFile("test/Cursed Be The Treasure.txt");
+    int count = 3 * RandomWalkEngine.BLOCK_SIZE + 17;
+
+    List<List<String>> walks = new ArrayList<>();
+    TextGraphAnalyzer.randomWalks(book, count, 99, walks::add);
+    assertEquals(count, walks.size());
+    for (List<String> walk : walks) {
+      for (int i = 1; i < walk.size(); i++) {
+        assertTrue(book.getNeighbors(walk.get(i - 1)).containsKey(walk.get(i)), walk::toString);
+      }
+    }
+
+    // 同一个种子写出的文件与内存中的结果一致
+    Path file = dir.resolve("walks.txt");
+    TextGraphAnalyzer.randomWalksToFile(book, count, 99, file.toString());
+    List<String> lines = Files.readAllLines(file);
+    assertEquals(count, lines.size());
+    for (int i = 0; i < count; i++) {
+      assertEquals(String.join(" ", walks.get(i)), lines.get(i));
+    }
+  }
+
+  @Test
+  void testWalksSpanningSeveralBatches() throws IOException {
+    TextGraphAnalyzer.DirectedGraph book =
+        TextGraphAnalyzer.createGraphFromFile("test/Cursed Be The Treasure.txt");
+    int count = 2 * RandomWalkEngine.BATCH_BLOCKS * RandomWalkEngine.BLOCK_SIZE + 5;
+
+    // 按批次交给 sink 的结果仍然只取决于种子
+    List<List<String>> first = new ArrayList<>();
+    TextGraphAnalyzer.randomWalks(book, count, 7, first::add);
+    List<List<String>> second = new ArrayList<>();
+    TextGraphAnalyzer.randomWalks(book, count, 7, second::add);
+    assertEquals(count, first.size());
+    assertEquals(first, second);
+  }
+
+  @Test
+  void testAliasTableFollowsWeights() {
+    TextGraphAnalyzer.DirectedGraph weighted = new TextGraphAnalyzer.DirectedGraph();
+    weighted.addEdge("x", "a", 1);
+    weighted.addEdge("x", "b", 2);
+    weighted.addEdge("x", "c", 7);
+    CompactGraph compact = weighted.freeze();
+    AliasTable table = AliasTable.of(compact);
+    assertSame(table, AliasTable.of(compact));
+
+    int x = compact.indexOf("x");
+    int[] counts = new int[compact.size()];
+    SplittableRandom random = new SplittableRandom(5);
+    int samples = 100_000;
+    for (int i = 0; i < samples; i++) {
+      counts[compact.target(table.sample(x, random))]++;
+    }
+    assertEquals(0.1, counts[compact.indexOf("a")] / (double) samples, 0.01);
+    assertEquals(0.2, counts[compact.indexOf("b")] / (double) samples, 0.01);
+    assertEquals(0.7, counts[compact.indexOf("c")] / (double) samples, 0.01);
+  }
+
+  @Test
+  void testWeightedWalkWithRestart() {
+    assertThrows(IllegalArgumentException.class,
+        () -> TextGraphAnalyzer.weightedRandomWalk(graph, 1.0, 10, new SplittableRandom(1)));
+    assertThrows(IllegalArgumentException.class,
+        () -> TextGraphAnalyzer.weightedRandomWalk(graph, 0.1, 0, new SplittableRandom(1)));
+
+    List<List<String>> walks = new ArrayList<>();
+    TextGraphAnalyzer.weightedRandomWalks(graph, 500, 0.2, 30, 3, walks::add);
+    assertEquals(500, walks.size());
+    for (List<String> walk : walks) {
+      // 图中每个单词都有出边，所以路径总能达到最大长度；每一步要么沿着边，要么跳回起点
+      assertEquals(30, walk.size());
+      for (int i = 1; i < walk.size(); i++) {
+        assertTrue(graph.getNeighbors(walk.get(i - 1)).containsKey(walk.get(i))
+            || walk.get(i).equals(walk.get(0)), walk::toString);
+      }
+    }
+
+    String walk = TextGraphAnalyzer.weightedRandomWalk(graph, 0.0, 5, new SplittableRandom(8));
+    assertEquals(5, walk.split(" -> ").length);
+  }
+
+  @Test
+  void testWalkerBuffersGrowOnDemand() {
+    // 加权游走只按需扩大路径缓冲区，之后同一线程的普通游走仍能记录任意多条边
+    String longWalk =
+        TextGraphAnalyzer.weightedRandomWalk(graph, 0.1, 5000, new SplittableRandom(4));
+    assertEquals(5000, longWalk.split(" -> ").length);
+    SplittableRandom random = new SplittableRandom(6);
+    for (int i = 0; i < 200; i++) {
+      assertFalse(TextGraphAnalyzer.randomWalk(graph, random).isEmpty());
+    }
+  }
+}